@@ -0,0 +1,114 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.Arrays;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Scores images with a trained network in batches, one output call per batch.
+ *
+ * The predicted label and its probability are computed by ND4J (argmax and max over the classes)
+ * and read back in bulk instead of per class with getDouble. Like MultiLayerNetwork, this class
+ * is not thread safe.
+ */
+public class BatchScorer {
+
+	private final MultiLayerNetwork model;
+
+	public BatchScorer(MultiLayerNetwork model) {
+		this.model = model;
+	}
+
+	public MultiLayerNetwork getModel() {
+		return model;
+	}
+
+	/**
+	 * Predicts the label of every row of features.
+	 * @param labels receives the predicted labels
+	 * @param confidence receives the probability of the predicted labels, may be null
+	 */
+	public void predict(INDArray features, int[] labels, float[] confidence) {
+		INDArray output = model.output(features, false);
+
+		int[] argMax = Nd4j.argMax(output, 1).data().asInt();
+		System.arraycopy(argMax, 0, labels, 0, features.rows());
+
+		if(confidence != null) {
+			float[] max = output.max(1).data().asFloat();
+			System.arraycopy(max, 0, confidence, 0, features.rows());
+		}
+	}
+
+	/**
+	 * Predicts the labels of the given images in batches of batchSize and measures the latency of every batch.
+	 * One batch is scored before the measurement to warm up the network.
+	 */
+	public ScoringResult score(ImageDataset images, int[] indices, int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("batch size " + batchSize + " is not positive");
+		}
+
+		int size = images.getImageSize();
+		int batches = (indices.length + batchSize - 1) / batchSize;
+		int[] predictions = new int[indices.length];
+		long[] latencies = new long[batches];
+
+		float[] featureData = new float[batchSize * size];
+		int[] labels = new int[batchSize];
+
+		if(indices.length > 0) {
+			predict(batch(images, indices, 0, Math.min(batchSize, indices.length), featureData), labels, null);
+		}
+
+		long start = System.nanoTime();
+
+		for(int b = 0; b < batches; b++) {
+			long batchStart = System.nanoTime();
+			int from = b * batchSize;
+			int n = Math.min(batchSize, indices.length - from);
+
+			predict(batch(images, indices, from, n, featureData), labels, null);
+			System.arraycopy(labels, 0, predictions, from, n);
+
+			latencies[b] = System.nanoTime() - batchStart;
+		}
+
+		return new ScoringResult(batchSize, indices, predictions, latencies, System.nanoTime() - start);
+	}
+
+	/**
+	 * Creates the feature matrix of images indices[from] to indices[from + n - 1] with one bulk copy of
+	 * featureData, which is reused for the next batch.
+	 */
+	private static INDArray batch(ImageDataset images, int[] indices, int from, int n, float[] featureData) {
+		int size = images.getImageSize();
+		gather(images, indices, from, n, featureData);
+
+		float[] data = n * size == featureData.length ? featureData : Arrays.copyOf(featureData, n * size);
+		return Nd4j.create(data, new int[] {n, size});
+	}
+
+	/**
+	 * Writes the normalised pixels of images indices[from] to indices[from + n - 1] to out.
+	 */
+	private static void gather(ImageDataset images, int[] indices, int from, int n, float[] out) {
+		int size = images.getImageSize();
+		int j = 0;
+
+		while(j < n) {
+			// copy runs of consecutive indices at once
+			int first = indices[from + j];
+			int run = 1;
+			while(j + run < n && indices[from + j + run] == first + run) {
+				run++;
+			}
+
+			images.normalize(first, first + run, out, j * size);
+			j += run;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package org.ece16.dl4j.mnist;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read-only view of an IDX file of unsigned bytes, e.g. MNIST images (3 dimensions) or labels (1 dimension).
+ *
+ * Plain files are memory-mapped with {@link FileChannel#map}, gzipped files ({@code .gz}) are decompressed
+ * in a single streaming pass into a direct buffer. In both cases the data lives outside the heap and entries
+ * are accessed without copying, either as buffer slices ({@link #imageAt(int)}) or byte by byte.
+ * Instances are safe for concurrent reads.
+ */
+public class IdxFile {
+
+	private static final int UNSIGNED_BYTE = 0x08;
+
+	private final ByteBuffer data;
+	private final int magic;
+	private final int[] dimensions;
+	private final int headerSize;
+	private final int entrySize;
+
+	private IdxFile(ByteBuffer data) throws IOException {
+		this.data = data;
+		data.order(ByteOrder.BIG_ENDIAN);
+
+		if(data.capacity() < 4) {
+			throw new IOException("IDX file has no header");
+		}
+
+		magic = data.getInt(0);
+		if((magic >>> 16) != 0 || ((magic >>> 8) & 0xFF) != UNSIGNED_BYTE) {
+			throw new IOException(String.format("magic number 0x%08x is not the one of an IDX file of unsigned bytes", magic));
+		}
+
+		dimensions = new int[magic & 0xFF];
+		if(data.capacity() < 4 + 4 * dimensions.length) {
+			throw new IOException("IDX header is truncated");
+		}
+
+		long size = 1;
+		for(int d = 0; d < dimensions.length; d++) {
+			dimensions[d] = data.getInt(4 + 4 * d);
+			if(dimensions[d] <= 0) {
+				throw new IOException("IDX dimension " + d + " is " + dimensions[d] + ", expected a positive size");
+			}
+
+			if(d > 0) {
+				size *= dimensions[d];
+			}
+		}
+
+		if(size > Integer.MAX_VALUE) {
+			throw new IOException("IDX entries of " + size + " bytes are too large");
+		}
+
+		headerSize = 4 + 4 * dimensions.length;
+		entrySize = (int) size;
+
+		if(data.capacity() < headerSize + (long) getCount() * entrySize) {
+			throw new IOException("IDX file is truncated: " + data.capacity() + " bytes for " + getCount() + " entries of " + entrySize + " bytes");
+		}
+	}
+
+	/**
+	 * Maps a plain IDX file or decompresses a gzipped one (file name ending with {@code .gz}).
+	 */
+	public static IdxFile open(String file) throws IOException {
+		if(file.endsWith(".gz")) {
+			return new IdxFile(decompress(file));
+		}
+
+		try(RandomAccessFile f = new RandomAccessFile(file, "r"); FileChannel channel = f.getChannel()) {
+			// the mapping stays valid after the channel is closed
+			return new IdxFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads IDX data already in memory, e.g. received over the network. The buffer is used without copying.
+	 */
+	public static IdxFile wrap(ByteBuffer data) throws IOException {
+		return new IdxFile(data.slice());
+	}
+
+	/**
+	 * Decompresses a gzipped IDX file into a direct buffer sized from its header.
+	 */
+	private static ByteBuffer decompress(String file) throws IOException {
+		try(InputStream in = new GZIPInputStream(new FileInputStream(file), 1 << 16)) {
+			DataInputStream header = new DataInputStream(in);
+			int magic = header.readInt();
+			if((magic >>> 16) != 0 || ((magic >>> 8) & 0xFF) != UNSIGNED_BYTE) {
+				throw new IOException(String.format("magic number 0x%08x is not the one of an IDX file of unsigned bytes", magic));
+			}
+
+			int[] dimensions = new int[magic & 0xFF];
+			long size = 4 + 4 * dimensions.length;
+			long entries = 1;
+
+			for(int d = 0; d < dimensions.length; d++) {
+				dimensions[d] = header.readInt();
+				if(dimensions[d] <= 0) {
+					throw new IOException("IDX dimension " + d + " of " + file + " is " + dimensions[d] + ", expected a positive size");
+				}
+				entries *= dimensions[d];
+			}
+
+			size += entries;
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException("IDX file " + file + " is too large: " + size + " bytes");
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+			buffer.putInt(magic);
+			for(int d = 0; d < dimensions.length; d++) {
+				buffer.putInt(dimensions[d]);
+			}
+
+			ReadableByteChannel channel = Channels.newChannel(in);
+			while(buffer.hasRemaining()) {
+				if(channel.read(buffer) < 0) {
+					throw new IOException("IDX file " + file + " is truncated");
+				}
+			}
+
+			buffer.clear();
+			return buffer;
+		}
+	}
+
+	public int getMagic() {
+		return magic;
+	}
+
+	/**
+	 * @return number of entries (images or labels)
+	 */
+	public int getCount() {
+		return dimensions.length > 0 ? dimensions[0] : 0;
+	}
+
+	public int getDimensions() {
+		return dimensions.length;
+	}
+
+	public int getDimension(int d) {
+		return dimensions[d];
+	}
+
+	/**
+	 * @return number of rows of an image file
+	 */
+	public int getRows() {
+		return dimensions[1];
+	}
+
+	/**
+	 * @return number of columns of an image file
+	 */
+	public int getCols() {
+		return dimensions[2];
+	}
+
+	/**
+	 * @return number of bytes per entry, e.g. rows * cols for images and 1 for labels
+	 */
+	public int getEntrySize() {
+		return entrySize;
+	}
+
+	/**
+	 * @return read-only view of the bytes of entry i, position 0 and limit {@link #getEntrySize()}
+	 */
+	public ByteBuffer imageAt(int i) {
+		ByteBuffer view = data.duplicate();
+		int start = offset(i);
+		view.limit(start + entrySize).position(start);
+		return view.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return unsigned value of byte k of entry i
+	 */
+	public int get(int i, int k) {
+		return data.get(offset(i) + k) & 0xFF;
+	}
+
+	/**
+	 * @return unsigned value of the pixel (row, col) of image i
+	 */
+	public int getPixel(int i, int row, int col) {
+		return get(i, row * dimensions[2] + col);
+	}
+
+	/**
+	 * @return label i of a label file
+	 */
+	public int labelAt(int i) {
+		return get(i, 0);
+	}
+
+	/**
+	 * Copies entry i into the destination array at the given offset.
+	 */
+	public void copy(int i, byte[] destination, int offset) {
+		ByteBuffer view = data.duplicate();
+		view.position(offset(i));
+		view.get(destination, offset, entrySize);
+	}
+
+	private int offset(int i) {
+		if(i < 0 || i >= getCount()) {
+			throw new IndexOutOfBoundsException("entry " + i + " of " + getCount());
+		}
+
+		return headerSize + i * entrySize;
+	}
+}
@@ -0,0 +1,204 @@
+package org.ece16.dl4j.mnist;
+
+import java.io.IOException;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Grey scale images (e.g. MNIST) stored in one contiguous byte[] of count x rows x cols unsigned pixels
+ * with optional labels.
+ *
+ * Image i starts at offset i * getImageSize() of {@link #getPixels()}, pixel (row, col) at
+ * offset + row * cols + col. Features are produced in bulk as float[] in [0,1], either normalised
+ * (pixel / 255) or binarised (pixel > threshold), and handed to ND4J as one buffer per batch.
+ */
+public class ImageDataset {
+
+	/** binarisation threshold of the DL4J MNIST fetcher */
+	public static final int DEFAULT_BINARIZE_THRESHOLD = 30;
+
+	private final int count;
+	private final int rows;
+	private final int cols;
+	private final byte[] pixels;
+	private final int[] labels;
+
+	/**
+	 * @param pixels count x rows x cols unsigned bytes, used without copying
+	 * @param labels label of every image, null if there are none
+	 */
+	public ImageDataset(byte[] pixels, int count, int rows, int cols, int[] labels) {
+		if(pixels.length != count * rows * cols) {
+			throw new IllegalArgumentException("pixels has " + pixels.length + " entries, expected " + count + " x " + rows + " x " + cols);
+		}
+
+		if(labels != null && labels.length != count) {
+			throw new IllegalArgumentException("number of labels " + labels.length + " and images " + count + " don't match");
+		}
+
+		this.count = count;
+		this.rows = rows;
+		this.cols = cols;
+		this.pixels = pixels;
+		this.labels = labels;
+	}
+
+	/**
+	 * Copies the images of an IDX image file and the labels of an IDX label file (may be null) into a dataset.
+	 */
+	public static ImageDataset fromIdx(IdxFile images, IdxFile labels) {
+		if(images.getDimensions() != 3) {
+			throw new IllegalArgumentException("image file has " + images.getDimensions() + " dimensions, expected 3");
+		}
+
+		byte[] pixels = new byte[images.getCount() * images.getEntrySize()];
+		for(int i = 0; i < images.getCount(); i++) {
+			images.copy(i, pixels, i * images.getEntrySize());
+		}
+
+		int[] labelArray = null;
+		if(labels != null) {
+			labelArray = new int[labels.getCount()];
+			for(int i = 0; i < labelArray.length; i++) {
+				labelArray[i] = labels.labelAt(i);
+			}
+		}
+
+		return new ImageDataset(pixels, images.getCount(), images.getRows(), images.getCols(), labelArray);
+	}
+
+	/**
+	 * Reads plain or gzipped IDX files.
+	 * @param labelFile may be null
+	 */
+	public static ImageDataset load(String imageFile, String labelFile) throws IOException {
+		return fromIdx(IdxFile.open(imageFile), labelFile != null ? IdxFile.open(labelFile) : null);
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * @return rows * cols, the stride between images
+	 */
+	public int getImageSize() {
+		return rows * cols;
+	}
+
+	/**
+	 * @return the backing array of all pixels
+	 */
+	public byte[] getPixels() {
+		return pixels;
+	}
+
+	public int getPixel(int i, int row, int col) {
+		return pixels[i * rows * cols + row * cols + col] & 0xFF;
+	}
+
+	public boolean hasLabels() {
+		return labels != null;
+	}
+
+	public int getLabel(int i) {
+		return labels[i];
+	}
+
+	/**
+	 * Writes the pixels of images from (inclusive) to to (exclusive) divided by 255 to out, starting at offset.
+	 */
+	public void normalize(int from, int to, float[] out, int offset) {
+		int start = from * getImageSize();
+		int end = to * getImageSize();
+
+		for(int k = start; k < end; k++) {
+			out[offset++] = (pixels[k] & 0xFF) / 255.0f;
+		}
+	}
+
+	/**
+	 * Writes 1 for the pixels of images from (inclusive) to to (exclusive) above the threshold and 0 otherwise.
+	 */
+	public void binarize(int from, int to, int threshold, float[] out, int offset) {
+		int start = from * getImageSize();
+		int end = to * getImageSize();
+
+		for(int k = start; k < end; k++) {
+			out[offset++] = (pixels[k] & 0xFF) > threshold ? 1.0f : 0.0f;
+		}
+	}
+
+	/**
+	 * @return the normalised pixels of all images
+	 */
+	public float[] normalize() {
+		float[] out = new float[pixels.length];
+		normalize(0, count, out, 0);
+		return out;
+	}
+
+	/**
+	 * @return the binarised pixels of all images
+	 */
+	public float[] binarize(int threshold) {
+		float[] out = new float[pixels.length];
+		binarize(0, count, threshold, out, 0);
+		return out;
+	}
+
+	/**
+	 * Writes the one-hot encoded labels of images from (inclusive) to to (exclusive) to out, starting at offset.
+	 */
+	public void oneHot(int from, int to, int classes, float[] out, int offset) {
+		for(int i = from; i < to; i++) {
+			for(int c = 0; c < classes; c++) {
+				out[offset + c] = 0.0f;
+			}
+			out[offset + labels[i]] = 1.0f;
+			offset += classes;
+		}
+	}
+
+	/**
+	 * @return (to - from) x rows * cols feature matrix of the images, created from one float[] in bulk
+	 */
+	public INDArray features(int from, int to, boolean binarize) {
+		float[] data = new float[(to - from) * getImageSize()];
+
+		if(binarize) {
+			binarize(from, to, DEFAULT_BINARIZE_THRESHOLD, data, 0);
+		}
+		else {
+			normalize(from, to, data, 0);
+		}
+
+		return Nd4j.create(data, new int[] {to - from, getImageSize()});
+	}
+
+	/**
+	 * @return (to - from) x classes one-hot label matrix
+	 */
+	public INDArray labels(int from, int to, int classes) {
+		float[] data = new float[(to - from) * classes];
+		oneHot(from, to, classes, data, 0);
+		return Nd4j.create(data, new int[] {to - from, classes});
+	}
+
+	/**
+	 * @return features and one-hot labels (10 classes) of the images from (inclusive) to to (exclusive)
+	 */
+	public DataSet toDataSet(int from, int to, boolean binarize) {
+		return new DataSet(features(from, to, binarize), labels(from, to, 10));
+	}
+}
@@ -1,6 +1,8 @@
 package org.ece16.dl4j.mnist;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 import org.deeplearning4j.datasets.iterator.impl.MnistDataSetIterator;
@@ -15,15 +17,21 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Tester class for LeNet.
+ * With --score the model predicts images in batches with {@link BatchScorer} and reports
+ * images/s and batch latencies for every batch size.
  * Code adapted from {@linktourl https://github.com/deeplearning4j/dl4j-examples/blob/master/dl4j-examples/src/main/java/org/deeplearning4j/examples/convolution/LenetMnistExample.java}
  */
 public class LeNetMnistTester {
     private static final Logger log = LoggerFactory.getLogger(LeNetMnistTester.class);
 
+	private static final String DEFAULT_BATCH_SIZES = "1,8,32,64,256";
+
     public static void main(String[] args) throws Exception {
 		
-		if(args.length < 1 || args.length > 2) {
+		if(args.length < 1 || args.length > 5 || (args.length > 2 && !args[1].equals("--score"))) {
 			System.err.println("usage: java org.ece16.dl4j.LeNetMnistTester model-file [image-number]");
+			System.err.println("       java org.ece16.dl4j.LeNetMnistTester model-file --score images [batch-sizes [label-file]]");
+			System.err.println("images: MNIST test set indices (e.g. 0-9999 or 3,17,100-199) or an IDX image file, batch-sizes: e.g. 1,8,64");
 			System.exit(1);
 		}
 		
@@ -36,6 +44,14 @@ public class LeNetMnistTester {
 		if(args.length == 1) {
 			evalMnistTestSet(leNetModel);
 		}
+		else if(args[1].equals("--score")) {
+			if(args.length < 3) {
+				System.err.println("--score needs the images to score");
+				System.exit(1);
+			}
+
+			scoreBatches(leNetModel, args[2], args.length > 3 ? args[3] : DEFAULT_BATCH_SIZES, args.length > 4 ? args[4] : null);
+		}
 		else {
 			boolean binarize = false;
 			boolean train = false; // go for the MNIST test set
@@ -54,20 +70,22 @@ public class LeNetMnistTester {
 				INDArray features = dataSet.getFeatures();
 				INDArray labels = dataSet.getLabels();
 				INDArray modelOutput = leNetModel.output(features, false);
+				float[] target = labels.data().asFloat();
+				float[] model = modelOutput.data().asFloat();
 				int imageLabel = 0;
 				int modelLabel = 0;
 				double maxModelValue = 0.0;
 				
-				for(int i = 0; i < labels.columns(); i++) {
-					evalOutput[i] = "label: " + i + " target: " + labels.getDouble(0,i) + " model: " + modelOutput.getDouble(0,i);
+				for(int i = 0; i < target.length; i++) {
+					evalOutput[i] = "label: " + i + " target: " + target[i] + " model: " + model[i];
 					
-					if(labels.getDouble(0,i) > 0.5) {
+					if(target[i] > 0.5) {
 						imageLabel = i;
 					}
 					
-					if(modelOutput.getDouble(0,i) > maxModelValue) {
+					if(model[i] > maxModelValue) {
 						modelLabel = i;
-						maxModelValue = modelOutput.getDouble(0,i);
+						maxModelValue = model[i];
 					}
 				}
 				
@@ -148,4 +166,59 @@ public class LeNetMnistTester {
 		
         log.info(eval.stats());
 	}
-}
\ No newline at end of file
+
+	private static void scoreBatches(MultiLayerNetwork leNetModel, String images, String batchSizes, String labelFile) throws Exception {
+		ImageDataset dataset;
+		int[] indices;
+
+		if(new File(images).isFile()) {
+			log.info("Load images from file '" + images + "'");
+			dataset = MnistReader.getImageDataset(images, labelFile);
+			indices = parseIndices("0-" + (dataset.getCount() - 1), dataset.getCount());
+		}
+		else {
+			log.info("Load test data....");
+			dataset = new MnistDemoDataFetcher(false, false, false, 0).getImageDataset(false);
+			indices = parseIndices(images, dataset.getCount());
+		}
+
+		BatchScorer scorer = new BatchScorer(leNetModel);
+		log.info(String.format("Score %d images", indices.length));
+
+		for(String batchSize : batchSizes.split(",")) {
+			ScoringResult result = scorer.score(dataset, indices, Integer.parseInt(batchSize.trim()));
+
+			log.info(String.format("batch %4d: %9.1f images/s, latency p50 %8.3f ms, p99 %8.3f ms, accuracy %.4f",
+					result.getBatchSize(), result.getImagesPerSecond(), result.getLatencyMillis(50), result.getLatencyMillis(99),
+					result.getAccuracy(dataset)));
+		}
+	}
+
+	/**
+	 * Parses comma separated indices and inclusive ranges like 3,17,100-199.
+	 */
+	static int[] parseIndices(String spec, int count) {
+		List<Integer> indices = new ArrayList<>();
+
+		for(String part : spec.split(",")) {
+			String[] range = part.trim().split("-");
+			int from = Integer.parseInt(range[0].trim());
+			int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+
+			if(range.length > 2 || from < 0 || to >= count || from > to) {
+				throw new IllegalArgumentException("invalid images '" + part + "' for " + count + " images");
+			}
+
+			for(int i = from; i <= to; i++) {
+				indices.add(i);
+			}
+		}
+
+		int[] result = new int[indices.size()];
+		for(int k = 0; k < result.length; k++) {
+			result[k] = indices.get(k);
+		}
+
+		return result;
+	}
+}
@@ -2,6 +2,7 @@ package org.ece16.dl4j.mnist;
 
 import java.io.File;
 
+import org.deeplearning4j.datasets.iterator.AsyncDataSetIterator;
 import org.deeplearning4j.datasets.iterator.impl.MnistDataSetIterator;
 import org.deeplearning4j.eval.Evaluation;
 
@@ -31,6 +32,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Trainer class for LeNet.
+ * Training batches are assembled on background threads by {@link PrefetchingDataSetIterator},
+ * with the argument --no-prefetch by a MnistDataSetIterator behind DL4J's AsyncDataSetIterator as before.
+ * Every epoch logs the share of the training time spent waiting for data.
  * Code adapted from {@linktourl https://github.com/deeplearning4j/dl4j-examples/blob/master/dl4j-examples/src/main/java/org/deeplearning4j/examples/convolution/LenetMnistExample.java}
  */
 public class LeNetMnistTrainer {
@@ -44,8 +48,20 @@ public class LeNetMnistTrainer {
         int iterations = 1;
         int seed = 123;
 
+        boolean prefetch = !(args.length > 0 && args[0].equals("--no-prefetch"));
+
         log.info("Load data....");
-        DataSetIterator mnistTrain = new MnistDataSetIterator(batchSize,true,12345);
+        DataSetIterator trainData;
+        if(prefetch) {
+            // downloads MNIST if necessary
+            MnistDemoDataFetcher fetcher = new MnistDemoDataFetcher(false, true, false, 12345);
+            trainData = new PrefetchingDataSetIterator(fetcher.getImageDataset(true), batchSize, true, 12345);
+        }
+        else {
+            // what fit() does with an iterator that supports async loading, done explicitly because of the timer
+            trainData = new AsyncDataSetIterator(new MnistDataSetIterator(batchSize,true,12345), 2);
+        }
+        TimedDataSetIterator mnistTrain = new TimedDataSetIterator(trainData);
         DataSetIterator mnistTest = new MnistDataSetIterator(batchSize,false,12345);
 
         log.info("Build model....");
@@ -111,8 +127,14 @@ public class LeNetMnistTrainer {
         log.info("Train model....");
         model.setListeners(new ScoreIterationListener(1));
         for(int i = 0; i < nEpochs; i++) {
+            mnistTrain.resetTimer();
+            long start = System.nanoTime();
             model.fit(mnistTrain);
+            long epochNanos = System.nanoTime() - start;
             log.info("*** Completed epoch {} ***", i);
+            log.info(String.format("Waited %.1f ms for %d batches, %.1f%% of %.1f s training (%s)",
+                    mnistTrain.getWaitNanos() / 1e6, mnistTrain.getBatches(), 100.0 * mnistTrain.getWaitNanos() / epochNanos,
+                    epochNanos / 1e9, prefetch ? "prefetching" : "async MnistDataSetIterator"));
 
 			File modelFile = File.createTempFile(String.format("lenet.dl4j.epoch%02d.model.tmp", i), "");
 			log.info("Save current model to file '" + modelFile.getAbsolutePath() + "'");
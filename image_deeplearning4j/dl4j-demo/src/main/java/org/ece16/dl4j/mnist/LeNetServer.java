@@ -0,0 +1,209 @@
+package org.ece16.dl4j.mnist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP server on localhost that scores MNIST images with a LeNet model loaded once at startup.
+ *
+ * POST /predict takes either raw images, one or more blocks of 28 x 28 unsigned bytes (784 bytes each),
+ * or an IDX image file. It answers with one line "label probability" per image. Concurrent requests are
+ * merged into batches by a {@link MicroBatcher}. GET /stats returns its counters, one "name value" per line.
+ *
+ * Example: curl --data-binary @t10k-images-idx3-ubyte http://localhost:8080/predict
+ */
+public class LeNetServer {
+	private static final Logger log = LoggerFactory.getLogger(LeNetServer.class);
+
+	public static final int ROWS = 28;
+	public static final int COLS = 28;
+	public static final int IMAGE_SIZE = ROWS * COLS;
+
+	private static final int MAX_REQUEST_BYTES = 64 << 20;
+
+	private final MicroBatcher batcher;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * @param port port on the loopback address, 0 picks a free port
+	 * @param threads number of threads handling connections, the most requests that can join one batch
+	 */
+	public LeNetServer(MultiLayerNetwork model, int port, int threads, int maxBatch, long maxWaitMicros) throws IOException {
+		batcher = new MicroBatcher(new BatchScorer(model), IMAGE_SIZE, maxBatch, maxWaitMicros);
+		executor = Executors.newFixedThreadPool(threads);
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.setExecutor(executor);
+
+		server.createContext("/predict", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handlePredict(exchange);
+			}
+		});
+
+		server.createContext("/stats", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, 200, statistics());
+			}
+		});
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1 || args.length > 5) {
+			System.err.println("usage: java org.ece16.dl4j.mnist.LeNetServer model-file [port [max-batch [max-wait-micros [threads]]]]");
+			System.exit(1);
+		}
+
+		File modelFile = new File(args[0]);
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+		int maxBatch = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+		long maxWaitMicros = args.length > 3 ? Long.parseLong(args[3]) : 2000;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+
+		log.info("Load model from file '" + modelFile.getAbsolutePath() + "'");
+		MultiLayerNetwork model = ModelSerializer.restoreMultiLayerNetwork(modelFile);
+
+		LeNetServer server = new LeNetServer(model, port, threads, maxBatch, maxWaitMicros);
+		server.start();
+
+		log.info(String.format("Listening on http://localhost:%d/predict (max batch %d, max wait %d us)", server.getPort(), maxBatch, maxWaitMicros));
+	}
+
+	public void start() {
+		batcher.start();
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdown();
+		batcher.shutdown();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public MicroBatcher getBatcher() {
+		return batcher;
+	}
+
+	private void handlePredict(HttpExchange exchange) throws IOException {
+		if(!"POST".equals(exchange.getRequestMethod())) {
+			respond(exchange, 405, "use POST with raw 28 x 28 images or an IDX image file\n");
+			return;
+		}
+
+		ImageDataset images;
+		try {
+			images = parseImages(readBody(exchange.getRequestBody()));
+		} catch (IOException | IllegalArgumentException e) {
+			respond(exchange, 400, e.getMessage() + "\n");
+			return;
+		}
+
+		int count = images.getCount();
+		int[] labels = new int[count];
+		float[] confidence = new float[count];
+
+		try {
+			batcher.predict(images.normalize(), count, labels, confidence);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "interrupted\n");
+			return;
+		} catch (RuntimeException e) {
+			respond(exchange, 500, e.getMessage() + "\n");
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder(count * 12);
+		for(int i = 0; i < count; i++) {
+			sb.append(labels[i]).append(' ').append(confidence[i]).append('\n');
+		}
+
+		respond(exchange, 200, sb.toString());
+	}
+
+	/**
+	 * Raw images are a multiple of 784 bytes long. An IDX file has a header of 16 bytes, so its length never is.
+	 * The IDX header comes from the client, {@link IdxFile} rejects sizes that don't match the body.
+	 */
+	static ImageDataset parseImages(byte[] body) throws IOException {
+		if(body.length == 0) {
+			throw new IllegalArgumentException("no images");
+		}
+
+		if(body.length % IMAGE_SIZE == 0) {
+			return new ImageDataset(body, body.length / IMAGE_SIZE, ROWS, COLS, null);
+		}
+
+		// check the shape before anything is copied
+		IdxFile file = IdxFile.wrap(ByteBuffer.wrap(body));
+		if(file.getDimensions() != 3 || file.getRows() != ROWS || file.getCols() != COLS) {
+			throw new IllegalArgumentException("IDX file doesn't hold 28 x 28 images");
+		}
+
+		return ImageDataset.fromIdx(file, null);
+	}
+
+	private String statistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("requests ").append(batcher.getRequests()).append('\n');
+		sb.append("images ").append(batcher.getImages()).append('\n');
+		sb.append("batches ").append(batcher.getBatches()).append('\n');
+		sb.append("failures ").append(batcher.getFailures()).append('\n');
+		sb.append(String.format("mean_batch_size %.2f%n", batcher.getMeanBatchSize()));
+		sb.append(String.format("images_per_second %.1f%n", batcher.getImagesPerSecond()));
+		sb.append(String.format("latency_p50_ms %.3f%n", batcher.getLatencyMillis(50)));
+		sb.append(String.format("latency_p99_ms %.3f%n", batcher.getLatencyMillis(99)));
+		return sb.toString();
+	}
+
+	private static byte[] readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 16];
+		int n;
+
+		while((n = in.read(buffer)) > 0) {
+			if(out.size() + n > MAX_REQUEST_BYTES) {
+				throw new IllegalArgumentException("request is larger than " + MAX_REQUEST_BYTES + " bytes");
+			}
+			out.write(buffer, 0, n);
+		}
+
+		return out.toByteArray();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.factory.Nd4j;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges concurrent prediction requests into batches that are scored by one thread with one output call each.
+ *
+ * The scoring thread takes the oldest request and waits at most maxWait for more requests until the batch
+ * holds maxBatch images. Requests larger than maxBatch are split into parts of maxBatch images, which are
+ * queued and counted as requests of their own, so no output call exceeds maxBatch images and other
+ * requests are scored between the parts. {@link #predict} blocks the calling thread until its images are scored and fails once the batcher
+ * is shut down. A failing batch, including errors of the native backend, only fails its own requests.
+ * Counters of requests, images, batches and the latencies of the most recent requests are kept for monitoring.
+ */
+public class MicroBatcher {
+	private static final Logger log = LoggerFactory.getLogger(MicroBatcher.class);
+
+	private static final int LATENCY_WINDOW = 4096;
+	private static final long POLL_MILLIS = 100;
+
+	private final BatchScorer scorer;
+	private final int imageSize;
+	private final int maxBatch;
+	private final long maxWaitNanos;
+
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private Request carry;
+	private volatile boolean stopped;
+
+	private final long startNanos = System.nanoTime();
+	private final long[] latencies = new long[LATENCY_WINDOW];
+	private long requests;
+	private long images;
+	private long batches;
+	private long failures;
+
+	/**
+	 * @param imageSize number of features per image, e.g. 784 for MNIST
+	 * @param maxBatch number of images at which a batch is scored without waiting
+	 * @param maxWaitMicros time the oldest request waits for more requests to join its batch
+	 */
+	public MicroBatcher(BatchScorer scorer, int imageSize, int maxBatch, long maxWaitMicros) {
+		if(maxBatch < 1 || maxWaitMicros < 0) {
+			throw new IllegalArgumentException("max batch must be positive and max wait not negative");
+		}
+
+		this.scorer = scorer;
+		this.imageSize = imageSize;
+		this.maxBatch = maxBatch;
+		this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				loop();
+			}
+		}, "micro-batcher");
+		thread.setDaemon(true);
+	}
+
+	public void start() {
+		thread.start();
+	}
+
+	public void shutdown() {
+		stopped = true;
+		thread.interrupt();
+	}
+
+	/**
+	 * Predicts the labels of count images with normalised features, count x imageSize values.
+	 * @param labels receives the predicted labels
+	 * @param confidence receives the probabilities of the predicted labels
+	 */
+	public void predict(float[] features, int count, int[] labels, float[] confidence) throws InterruptedException {
+		if(features.length != count * imageSize) {
+			throw new IllegalArgumentException(features.length + " features for " + count + " images of size " + imageSize);
+		}
+
+		if(stopped) {
+			throw new IllegalStateException("micro batcher is shut down");
+		}
+
+		List<Request> parts = new ArrayList<>();
+		for(int offset = 0; offset < count; offset += maxBatch) {
+			Request part = new Request(features, offset, Math.min(maxBatch, count - offset), labels, confidence);
+			parts.add(part);
+			queue.put(part);
+		}
+
+		for(Request part : parts) {
+			// the scoring thread may have stopped after the request was queued
+			while(!part.done.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if(stopped && !thread.isAlive()) {
+					throw new IllegalStateException("micro batcher is shut down");
+				}
+			}
+
+			if(part.error != null) {
+				throw new RuntimeException("scoring failed", part.error);
+			}
+		}
+	}
+
+	private void loop() {
+		List<Request> batch = new ArrayList<>();
+
+		try {
+			while(!Thread.currentThread().isInterrupted()) {
+				collect(batch);
+				score(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// shutdown
+		} finally {
+			stopped = true;
+
+			// release callers still waiting
+			if(carry != null) {
+				batch.add(carry);
+			}
+			queue.drainTo(batch);
+
+			for(Request request : batch) {
+				if(request.done.getCount() > 0) {
+					request.error = new IllegalStateException("micro batcher is shut down");
+					request.done.countDown();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for the first request and adds requests until maxBatch images are reached or maxWait has passed.
+	 */
+	private void collect(List<Request> batch) throws InterruptedException {
+		Request first = carry != null ? carry : queue.take();
+		carry = null;
+		batch.add(first);
+
+		int count = first.count;
+		long deadline = first.created + maxWaitNanos;
+
+		while(count < maxBatch) {
+			long wait = deadline - System.nanoTime();
+			Request next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+			if(next == null) {
+				break;
+			}
+
+			if(count + next.count > maxBatch) {
+				carry = next;
+				break;
+			}
+
+			batch.add(next);
+			count += next.count;
+		}
+	}
+
+	private void score(List<Request> batch) {
+		int count = 0;
+		for(Request request : batch) {
+			count += request.count;
+		}
+
+		float[] features = new float[count * imageSize];
+		int[] labels = new int[count];
+		float[] confidence = new float[count];
+
+		int offset = 0;
+		for(Request request : batch) {
+			System.arraycopy(request.features, request.offset * imageSize, features, offset * imageSize, request.count * imageSize);
+			offset += request.count;
+		}
+
+		Throwable error = null;
+		try {
+			scorer.predict(Nd4j.create(features, new int[] {count, imageSize}), labels, confidence);
+		} catch (Throwable e) {
+			// an error of the native backend, e.g. OutOfMemoryError, must not stop the scoring thread
+			log.error("scoring a batch of " + count + " images failed", e);
+			error = e;
+		}
+
+		long now = System.nanoTime();
+		offset = 0;
+
+		synchronized(this) {
+			batches++;
+
+			for(Request request : batch) {
+				System.arraycopy(labels, offset, request.labels, request.offset, request.count);
+				System.arraycopy(confidence, offset, request.confidence, request.offset, request.count);
+				offset += request.count;
+
+				if(error != null) {
+					failures++;
+				}
+
+				latencies[(int) (requests % LATENCY_WINDOW)] = now - request.created;
+				requests++;
+				images += request.count;
+			}
+		}
+
+		for(Request request : batch) {
+			request.error = error;
+			request.done.countDown();
+		}
+	}
+
+	public synchronized long getRequests() {
+		return requests;
+	}
+
+	public synchronized long getImages() {
+		return images;
+	}
+
+	public synchronized long getBatches() {
+		return batches;
+	}
+
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return images scored per second since the batcher was created
+	 */
+	public synchronized double getImagesPerSecond() {
+		return images / ((System.nanoTime() - startNanos) / 1e9);
+	}
+
+	public synchronized double getMeanBatchSize() {
+		return batches == 0 ? 0 : (double) images / batches;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return request latency in milliseconds (queueing and scoring) at the percentile of the most recent requests
+	 */
+	public synchronized double getLatencyMillis(double percentile) {
+		int n = (int) Math.min(requests, LATENCY_WINDOW);
+		if(n == 0) {
+			return Double.NaN;
+		}
+
+		long[] sorted = Arrays.copyOf(latencies, n);
+		Arrays.sort(sorted);
+
+		int rank = (int) Math.ceil(percentile / 100.0 * n);
+		return sorted[Math.max(0, Math.min(n - 1, rank - 1))] / 1e6;
+	}
+
+	public int getMaxBatch() {
+		return maxBatch;
+	}
+
+	/**
+	 * Images offset to offset + count - 1 of the features, labels and confidences of a caller.
+	 */
+	private static class Request {
+		final float[] features;
+		final int offset;
+		final int count;
+		final int[] labels;
+		final float[] confidence;
+		final long created = System.nanoTime();
+		final CountDownLatch done = new CountDownLatch(1);
+		volatile Throwable error;
+
+		Request(float[] features, int offset, int count, int[] labels, float[] confidence) {
+			this.features = features;
+			this.offset = offset;
+			this.count = count;
+			this.labels = labels;
+			this.confidence = confidence;
+		}
+	}
+}
@@ -38,6 +38,13 @@ public class MnistDemoDataFetcher extends MnistDataFetcher {
 		}
 	}
 	
+	/**
+	 * Reads the downloaded training or test files into one contiguous {@link ImageDataset}.
+	 */
+	public ImageDataset getImageDataset(boolean train) {
+		return MnistReader.getImageDataset(getFileNameImages(train), getFileNameLabels(train));
+	}
+
 	public DataSet getSingleImage(int image_number) {
         float[][] featureData = new float[1][0];
         float[][] labelData = new float[1][0];
@@ -1,10 +1,6 @@
 package org.ece16.dl4j.mnist;
 
-import java.io.ByteArrayOutputStream;
-import java.io.RandomAccessFile;
-
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
+import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +8,7 @@ import java.util.Scanner;
 
 /**
  * Prints MNIST images on stdout.
+ * Plain and gzipped IDX files are read through {@link IdxFile}.
  * The MNIST file format supported by this class is described at {@linktourl http://yann.lecun.com/exdb/mnist/}.
  * The implementation below is adapted from {@linktourl https://github.com/jeffgriffith/mnist-reader}.
  */
@@ -28,34 +25,29 @@ public class MnistReader {
 		String file_label = arg[0];
 		String file_image = arg[1];
 
-		int [] labels = MnistReader.getLabels(file_label);
-		List<int[][]> images = MnistReader.getImages(file_image);
-
-		if(labels.length != images.size()) {
-			throw new RuntimeException("Number of labels and images don't match");
-		}
+		ImageDataset images = MnistReader.getImageDataset(file_image, file_label);
 
-		if(images.get(0).length != 28) {
+		if(images.getRows() != 28) {
 			throw new RuntimeException("Number of pixel is not 28");
 		}
 
-		if(images.get(0)[0].length != 28) {
+		if(images.getCols() != 28) {
 			throw new RuntimeException("Number of pixel columms is not 28");
 		}
 
 		if(arg.length == 2) {
-			for(int i = 0; i < Math.min(5, labels.length); i++) {
-				printf("+---[ID:%05d, LABEL:%d]------+\n", i, labels[i]);
-				printf("%s", MnistReader.renderImage(images.get(i)));
+			for(int i = 0; i < Math.min(5, images.getCount()); i++) {
+				printf("+---[ID:%05d, LABEL:%d]------+\n", i, images.getLabel(i));
+				printf("%s", MnistReader.renderImage(images, i));
 			}
 		}
 		else {
 			int image_number = Integer.parseInt(arg[2]);
 			Scanner scanner = new Scanner(System.in);
 
-			while(image_number >= 0 && image_number < labels.length) {
-				printf("+---[ID:%05d, LABEL:%d]------+\n", image_number, labels[image_number]);
-				printf("%s", MnistReader.renderImage(images.get(image_number)));
+			while(image_number >= 0 && image_number < images.getCount()) {
+				printf("+---[ID:%05d, LABEL:%d]------+\n", image_number, images.getLabel(image_number));
+				printf("%s", MnistReader.renderImage(images, image_number));
 				printf("+----------------------------+\n");
 				printf("next id: ");
 
@@ -72,55 +64,66 @@ public class MnistReader {
 	}
 
 	public static int[] getLabels(String infile) {
-		ByteBuffer bb = loadFileToByteBuffer(infile);
+		IdxFile file = openFile(infile);
 
-		assertMagicNumber(LABEL_FILE_MAGIC_NUMBER, bb.getInt());
+		assertMagicNumber(LABEL_FILE_MAGIC_NUMBER, file.getMagic());
 
-		int numLabels = bb.getInt();
+		int numLabels = file.getCount();
 		int[] labels = new int[numLabels];
 
 		for (int i = 0; i < numLabels; ++i) {
-			labels[i] = bb.get() & 0xFF; // To unsigned
+			labels[i] = file.labelAt(i);
 		}
 
 		return labels;
 	}
 
+	/**
+	 * Reads every image into its own int[rows][cols]; {@link #getImageDataset(String, String)}
+	 * keeps all images in one byte[] instead.
+	 */
 	public static List<int[][]> getImages(String infile) {
-		ByteBuffer bb = loadFileToByteBuffer(infile);
+		IdxFile file = openFile(infile);
 
-		assertMagicNumber(IMAGE_FILE_MAGIC_NUMBER, bb.getInt());
+		assertMagicNumber(IMAGE_FILE_MAGIC_NUMBER, file.getMagic());
 
-		int numImages = bb.getInt();
-		int numRows = bb.getInt();
-		int numColumns = bb.getInt();
+		int numImages = file.getCount();
 		List<int[][]> images = new ArrayList<>();
 
 		for (int i = 0; i < numImages; i++) {
-			images.add(readImage(numRows, numColumns, bb));
+			images.add(readImage(file, i));
 		}
 
 		return images;
 	}
 
-	private static int[][] readImage(int numRows, int numCols, ByteBuffer bb) {
-		int[][] image = new int[numRows][];
-
-		for (int row = 0; row < numRows; row++) {
-			image[row] = readRow(numCols, bb);
+	/**
+	 * Reads all images and labels into one contiguous {@link ImageDataset}.
+	 * @param labelFile may be null
+	 */
+	public static ImageDataset getImageDataset(String imageFile, String labelFile) {
+		IdxFile images = openFile(imageFile);
+		assertMagicNumber(IMAGE_FILE_MAGIC_NUMBER, images.getMagic());
+
+		IdxFile labels = null;
+		if(labelFile != null) {
+			labels = openFile(labelFile);
+			assertMagicNumber(LABEL_FILE_MAGIC_NUMBER, labels.getMagic());
 		}
 
-		return image;
+		return ImageDataset.fromIdx(images, labels);
 	}
 
-	private static int[] readRow(int numCols, ByteBuffer bb) {
-		int[] row = new int[numCols];
+	private static int[][] readImage(IdxFile file, int i) {
+		int[][] image = new int[file.getRows()][file.getCols()];
 
-		for (int col = 0; col < numCols; ++col) {
-			row[col] = bb.get() & 0xFF; // To unsigned
+		for (int row = 0; row < image.length; row++) {
+			for (int col = 0; col < image[row].length; col++) {
+				image[row][col] = file.getPixel(i, row, col);
+			}
 		}
 
-		return row;
+		return image;
 	}
 
 	private static void assertMagicNumber(int expectedMagicNumber, int magicNumber) {
@@ -142,41 +145,25 @@ public class MnistReader {
 		System.out.printf(format, args);
 	}
 
-	private static ByteBuffer loadFileToByteBuffer(String infile) {
-		return ByteBuffer.wrap(loadFile(infile));
-	}
-
-	private static byte[] loadFile(String infile) {
+	/**
+	 * Maps the file, or decompresses it if its name ends with .gz, without copying it to the heap.
+	 */
+	private static IdxFile openFile(String infile) {
 		try {
-			RandomAccessFile f = new RandomAccessFile(infile, "r");
-			FileChannel chan = f.getChannel();
-			long fileSize = chan.size();
-			ByteBuffer bb = ByteBuffer.allocate((int) fileSize);
-			chan.read(bb);
-			bb.flip();
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-			for (int i = 0; i < fileSize; i++) {
-				baos.write(bb.get());
-			}
-
-			chan.close();
-			f.close();
-
-			return baos.toByteArray();
-		} catch (Exception e) {
+			return IdxFile.open(infile);
+		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	private static String renderImage(int[][] image) {
+	private static String renderImage(ImageDataset images, int i) {
 		StringBuffer sb = new StringBuffer();
 
-		for (int row = 0; row < image.length; row++) {
+		for (int row = 0; row < images.getRows(); row++) {
 			sb.append("|");
 
-			for (int col = 0; col < image[row].length; col++) {
-				int pixelVal = image[row][col];
+			for (int col = 0; col < images.getCols(); col++) {
+				int pixelVal = images.getPixel(i, row, col);
 				if (pixelVal == 0) {
 					sb.append(" ");
 				}
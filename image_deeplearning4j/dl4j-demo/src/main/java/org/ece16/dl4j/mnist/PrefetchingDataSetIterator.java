@@ -0,0 +1,283 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Iterates over minibatches of an {@link ImageDataset}, assembling the next batches on background threads.
+ *
+ * Up to prefetch batches are normalised (or binarised), shuffled and copied into new feature and
+ * label matrices ahead of the caller, in the order they are returned. Each matrix is created from its
+ * float[] with one bulk copy. {@link #asyncSupported()} returns false, the iterator already loads
+ * asynchronously and DL4J's own async iterator would only add another thread and queue.
+ */
+public class PrefetchingDataSetIterator implements DataSetIterator {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int CLASSES = 10;
+
+	private final ImageDataset images;
+	private final int batchSize;
+	private final boolean binarize;
+	private final int[] order;
+	private final Random random;
+
+	private final int prefetch;
+	private final ExecutorService executor;
+	private final ArrayDeque<Future<DataSet>> pending = new ArrayDeque<>();
+
+	private int submitted;
+	private int cursor;
+	private DataSetPreProcessor preProcessor;
+
+	/**
+	 * @param shuffle visit the images in a new random order every epoch
+	 * @param prefetch number of batches prepared ahead of the caller
+	 * @param threads number of background threads assembling batches
+	 */
+	public PrefetchingDataSetIterator(ImageDataset images, int batchSize, boolean binarize, boolean shuffle, long seed, int prefetch, int threads) {
+		if(batchSize < 1 || prefetch < 1 || threads < 1) {
+			throw new IllegalArgumentException("batch size, prefetch and threads must be positive");
+		}
+
+		if(!images.hasLabels()) {
+			throw new IllegalArgumentException("images have no labels");
+		}
+
+		this.images = images;
+		this.batchSize = batchSize;
+		this.binarize = binarize;
+		this.prefetch = prefetch;
+
+		if(shuffle) {
+			order = new int[images.getCount()];
+			for(int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			random = new Random(seed);
+			shuffle();
+		}
+		else {
+			order = null;
+			random = null;
+		}
+
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "mnist-prefetch");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		fill();
+	}
+
+	/**
+	 * Uses 2 background threads preparing up to 4 batches.
+	 */
+	public PrefetchingDataSetIterator(ImageDataset images, int batchSize, boolean shuffle, long seed) {
+		this(images, batchSize, false, shuffle, seed, 4, 2);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !pending.isEmpty();
+	}
+
+	@Override
+	public DataSet next() {
+		if(pending.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		DataSet dataSet;
+		try {
+			dataSet = pending.poll().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+
+		cursor += dataSet.numExamples();
+		fill();
+
+		return dataSet;
+	}
+
+	@Override
+	public DataSet next(int num) {
+		throw new UnsupportedOperationException("batches have a fixed size of " + batchSize);
+	}
+
+	@Override
+	public void reset() {
+		// batches of the old epoch are discarded, waiting for them keeps shuffle() from racing their assembly
+		while(!pending.isEmpty()) {
+			try {
+				pending.poll().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				// the batch is discarded anyway
+			}
+		}
+
+		if(order != null) {
+			shuffle();
+		}
+
+		submitted = 0;
+		cursor = 0;
+		fill();
+	}
+
+	/**
+	 * Stops the background threads.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Submits batches until prefetch batches are pending or all images are scheduled.
+	 */
+	private void fill() {
+		while(pending.size() < prefetch && submitted < images.getCount()) {
+			final int from = submitted;
+			final int to = Math.min(from + batchSize, images.getCount());
+			submitted = to;
+
+			pending.add(executor.submit(new Callable<DataSet>() {
+				@Override
+				public DataSet call() throws Exception {
+					return assemble(from, to);
+				}
+			}));
+		}
+	}
+
+	private DataSet assemble(int from, int to) {
+		int n = to - from;
+		int size = images.getImageSize();
+		float[] featureData = new float[n * size];
+		float[] labelData = new float[n * CLASSES];
+
+		if(order == null) {
+			copy(from, to, featureData, 0);
+			images.oneHot(from, to, CLASSES, labelData, 0);
+		}
+		else {
+			for(int j = 0; j < n; j++) {
+				int i = order[from + j];
+				copy(i, i + 1, featureData, j * size);
+				images.oneHot(i, i + 1, CLASSES, labelData, j * CLASSES);
+			}
+		}
+
+		DataSet dataSet = new DataSet(Nd4j.create(featureData, new int[] {n, size}), Nd4j.create(labelData, new int[] {n, CLASSES}));
+
+		DataSetPreProcessor preProcessor = this.preProcessor;
+		if(preProcessor != null) {
+			preProcessor.preProcess(dataSet);
+		}
+
+		return dataSet;
+	}
+
+	private void copy(int from, int to, float[] out, int offset) {
+		if(binarize) {
+			images.binarize(from, to, ImageDataset.DEFAULT_BINARIZE_THRESHOLD, out, offset);
+		}
+		else {
+			images.normalize(from, to, out, offset);
+		}
+	}
+
+	private void shuffle() {
+		for(int i = order.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+	}
+
+	@Override
+	public int totalExamples() {
+		return images.getCount();
+	}
+
+	@Override
+	public int inputColumns() {
+		return images.getImageSize();
+	}
+
+	@Override
+	public int totalOutcomes() {
+		return CLASSES;
+	}
+
+	@Override
+	public boolean resetSupported() {
+		return true;
+	}
+
+	@Override
+	public boolean asyncSupported() {
+		return false;
+	}
+
+	@Override
+	public int batch() {
+		return batchSize;
+	}
+
+	@Override
+	public int cursor() {
+		return cursor;
+	}
+
+	@Override
+	public int numExamples() {
+		return images.getCount();
+	}
+
+	@Override
+	public void setPreProcessor(DataSetPreProcessor preProcessor) {
+		this.preProcessor = preProcessor;
+	}
+
+	@Override
+	public DataSetPreProcessor getPreProcessor() {
+		return preProcessor;
+	}
+
+	@Override
+	public List<String> getLabels() {
+		return null;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
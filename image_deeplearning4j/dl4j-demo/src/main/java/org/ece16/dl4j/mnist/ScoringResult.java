@@ -0,0 +1,83 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.Arrays;
+
+/**
+ * Predictions and timings of scoring images in batches of one size, see {@link BatchScorer}.
+ */
+public class ScoringResult {
+
+	private final int batchSize;
+	private final int[] indices;
+	private final int[] predictions;
+	private final long[] sortedLatencies;
+	private final long totalNanos;
+
+	ScoringResult(int batchSize, int[] indices, int[] predictions, long[] latencies, long totalNanos) {
+		this.batchSize = batchSize;
+		this.indices = indices;
+		this.predictions = predictions;
+		this.sortedLatencies = latencies.clone();
+		this.totalNanos = totalNanos;
+
+		Arrays.sort(sortedLatencies);
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getCount() {
+		return predictions.length;
+	}
+
+	/**
+	 * @return predicted label of image indices[k] at position k
+	 */
+	public int[] getPredictions() {
+		return predictions;
+	}
+
+	public int getBatches() {
+		return sortedLatencies.length;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public double getImagesPerSecond() {
+		return predictions.length / (totalNanos / 1e9);
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return batch latency in milliseconds at the percentile (nearest rank)
+	 */
+	public double getLatencyMillis(double percentile) {
+		if(sortedLatencies.length == 0) {
+			return Double.NaN;
+		}
+
+		int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+		return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, rank - 1))] / 1e6;
+	}
+
+	/**
+	 * @return share of the predictions that match the labels of the images, NaN if they have none
+	 */
+	public double getAccuracy(ImageDataset images) {
+		if(!images.hasLabels() || predictions.length == 0) {
+			return Double.NaN;
+		}
+
+		int correct = 0;
+		for(int k = 0; k < predictions.length; k++) {
+			if(predictions[k] == images.getLabel(indices[k])) {
+				correct++;
+			}
+		}
+
+		return (double) correct / predictions.length;
+	}
+}
@@ -0,0 +1,135 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.List;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+/**
+ * Measures the time the caller spends waiting in next() of the wrapped iterator.
+ *
+ * {@link #asyncSupported()} returns false so that MultiLayerNetwork.fit(DataSetIterator) calls this
+ * iterator from the training thread and the measured time is the time training waits for data.
+ * An iterator that fit() would load asynchronously has to be wrapped in an AsyncDataSetIterator
+ * before it is passed here, otherwise the timer disables the background loading it is meant to measure.
+ */
+public class TimedDataSetIterator implements DataSetIterator {
+
+	private static final long serialVersionUID = 1L;
+
+	private final DataSetIterator iterator;
+	private long waitNanos;
+	private int batches;
+
+	public TimedDataSetIterator(DataSetIterator iterator) {
+		this.iterator = iterator;
+	}
+
+	/**
+	 * @return total time spent in next() since the last {@link #resetTimer()}
+	 */
+	public long getWaitNanos() {
+		return waitNanos;
+	}
+
+	/**
+	 * @return number of batches returned since the last {@link #resetTimer()}
+	 */
+	public int getBatches() {
+		return batches;
+	}
+
+	public void resetTimer() {
+		waitNanos = 0;
+		batches = 0;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return iterator.hasNext();
+	}
+
+	@Override
+	public DataSet next() {
+		long start = System.nanoTime();
+		DataSet dataSet = iterator.next();
+		waitNanos += System.nanoTime() - start;
+		batches++;
+		return dataSet;
+	}
+
+	@Override
+	public DataSet next(int num) {
+		long start = System.nanoTime();
+		DataSet dataSet = iterator.next(num);
+		waitNanos += System.nanoTime() - start;
+		batches++;
+		return dataSet;
+	}
+
+	@Override
+	public int totalExamples() {
+		return iterator.totalExamples();
+	}
+
+	@Override
+	public int inputColumns() {
+		return iterator.inputColumns();
+	}
+
+	@Override
+	public int totalOutcomes() {
+		return iterator.totalOutcomes();
+	}
+
+	@Override
+	public boolean resetSupported() {
+		return iterator.resetSupported();
+	}
+
+	@Override
+	public boolean asyncSupported() {
+		return false;
+	}
+
+	@Override
+	public void reset() {
+		iterator.reset();
+	}
+
+	@Override
+	public int batch() {
+		return iterator.batch();
+	}
+
+	@Override
+	public int cursor() {
+		return iterator.cursor();
+	}
+
+	@Override
+	public int numExamples() {
+		return iterator.numExamples();
+	}
+
+	@Override
+	public void setPreProcessor(DataSetPreProcessor preProcessor) {
+		iterator.setPreProcessor(preProcessor);
+	}
+
+	@Override
+	public DataSetPreProcessor getPreProcessor() {
+		return iterator.getPreProcessor();
+	}
+
+	@Override
+	public List<String> getLabels() {
+		return iterator.getLabels();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
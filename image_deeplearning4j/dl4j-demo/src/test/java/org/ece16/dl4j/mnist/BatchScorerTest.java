@@ -0,0 +1,97 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.Random;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import junit.framework.TestCase;
+
+public class BatchScorerTest extends TestCase {
+
+	private static final int COUNT = 37;
+
+	private static ImageDataset dataset() {
+		byte[] pixels = new byte[COUNT * 16];
+		int[] labels = new int[COUNT];
+		Random random = new Random(3);
+
+		random.nextBytes(pixels);
+		for(int i = 0; i < COUNT; i++) {
+			labels[i] = random.nextInt(10);
+		}
+
+		return new ImageDataset(pixels, COUNT, 4, 4, labels);
+	}
+
+	/**
+	 * Untrained softmax regression on 4 x 4 images.
+	 */
+	private static MultiLayerNetwork model() {
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+				.seed(5)
+				.weightInit(WeightInit.XAVIER)
+				.list()
+				.layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.NEGATIVELOGLIKELIHOOD)
+						.nIn(16)
+						.nOut(10)
+						.activation("softmax")
+						.build())
+				.backprop(true)
+				.pretrain(false)
+				.build();
+
+		MultiLayerNetwork model = new MultiLayerNetwork(conf);
+		model.init();
+		return model;
+	}
+
+	public void testBatchSizes() {
+		ImageDataset images = dataset();
+		MultiLayerNetwork model = model();
+		BatchScorer scorer = new BatchScorer(model);
+		int[] indices = LeNetMnistTester.parseIndices("30-36,2,5-20,0", COUNT);
+
+		INDArray output = model.output(images.features(0, COUNT, false), false);
+
+		for(int batchSize : new int[] {1, 4, 7, 64}) {
+			ScoringResult result = scorer.score(images, indices, batchSize);
+
+			assertEquals(indices.length, result.getCount());
+			assertEquals((indices.length + batchSize - 1) / batchSize, result.getBatches());
+			assertTrue(result.getLatencyMillis(50) <= result.getLatencyMillis(99));
+
+			for(int k = 0; k < indices.length; k++) {
+				int expected = 0;
+				for(int c = 1; c < 10; c++) {
+					if(output.getDouble(indices[k], c) > output.getDouble(indices[k], expected)) {
+						expected = c;
+					}
+				}
+				assertEquals("image " + indices[k] + " batch " + batchSize, expected, result.getPredictions()[k]);
+			}
+		}
+	}
+
+	public void testParseIndices() {
+		int[] indices = LeNetMnistTester.parseIndices("3, 7-9,1", 10);
+		assertEquals(5, indices.length);
+		assertEquals(3, indices[0]);
+		assertEquals(9, indices[3]);
+		assertEquals(1, indices[4]);
+
+		try {
+			LeNetMnistTester.parseIndices("5-10", 10);
+			fail();
+		}
+		catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package org.ece16.dl4j.mnist;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+public class IdxFileTest extends TestCase {
+
+	private static final int COUNT = 5;
+	private static final int ROWS = 3;
+	private static final int COLS = 4;
+
+	/**
+	 * Writes COUNT images of ROWS x COLS pixels with pixel (i, row, col) = 40 * i + 4 * row + col + 60.
+	 */
+	private static File writeImages(boolean gzip) throws IOException {
+		File file = File.createTempFile("images-idx3-ubyte", gzip ? ".gz" : "");
+		file.deleteOnExit();
+
+		OutputStream out = new FileOutputStream(file);
+		if(gzip) {
+			out = new GZIPOutputStream(out);
+		}
+
+		try(DataOutputStream data = new DataOutputStream(out)) {
+			data.writeInt(MnistReader.IMAGE_FILE_MAGIC_NUMBER);
+			data.writeInt(COUNT);
+			data.writeInt(ROWS);
+			data.writeInt(COLS);
+
+			for(int i = 0; i < COUNT; i++) {
+				for(int k = 0; k < ROWS * COLS; k++) {
+					data.writeByte(40 * i + k + 60);
+				}
+			}
+		}
+
+		return file;
+	}
+
+	private static void checkImages(IdxFile file) {
+		assertEquals(MnistReader.IMAGE_FILE_MAGIC_NUMBER, file.getMagic());
+		assertEquals(COUNT, file.getCount());
+		assertEquals(ROWS, file.getRows());
+		assertEquals(COLS, file.getCols());
+		assertEquals(ROWS * COLS, file.getEntrySize());
+
+		for(int i = 0; i < COUNT; i++) {
+			ByteBuffer image = file.imageAt(i);
+			assertEquals(ROWS * COLS, image.remaining());
+
+			for(int k = 0; k < ROWS * COLS; k++) {
+				assertEquals((40 * i + k + 60) & 0xFF, image.get(k) & 0xFF);
+				assertEquals((40 * i + k + 60) & 0xFF, file.getPixel(i, k / COLS, k % COLS));
+			}
+		}
+
+		byte[] copy = new byte[ROWS * COLS + 1];
+		file.copy(4, copy, 1);
+		assertEquals((40 * 4 + 60) & 0xFF, copy[1] & 0xFF);
+	}
+
+	public void testMapped() throws IOException {
+		checkImages(IdxFile.open(writeImages(false).getPath()));
+	}
+
+	public void testGzip() throws IOException {
+		checkImages(IdxFile.open(writeImages(true).getPath()));
+	}
+
+	public void testInvalidHeader() {
+		int[][] headers = {{-5, 3, 4}, {5, 0, 4}, {5, 65536, 65536}, {6, 3, 4}};
+
+		for(int[] header : headers) {
+			ByteBuffer data = ByteBuffer.allocate(16 + COUNT * ROWS * COLS);
+			data.putInt(MnistReader.IMAGE_FILE_MAGIC_NUMBER).putInt(header[0]).putInt(header[1]).putInt(header[2]);
+			data.clear();
+
+			try {
+				IdxFile.wrap(data);
+				fail();
+			}
+			catch(IOException e) {
+				// expected
+			}
+		}
+	}
+
+	public void testMnistReader() throws IOException {
+		int[][] image = MnistReader.getImages(writeImages(true).getPath()).get(2);
+		assertEquals(ROWS, image.length);
+		assertEquals(COLS, image[0].length);
+		assertEquals(80 + 4 + 3 + 60, image[1][3]);
+	}
+}
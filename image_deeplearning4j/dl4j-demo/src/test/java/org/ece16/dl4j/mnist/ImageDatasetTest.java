@@ -0,0 +1,79 @@
+package org.ece16.dl4j.mnist;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+import junit.framework.TestCase;
+
+public class ImageDatasetTest extends TestCase {
+
+	private static final int COUNT = 4;
+	private static final int ROWS = 2;
+	private static final int COLS = 3;
+
+	/**
+	 * COUNT images of ROWS x COLS pixels with pixel (i, row, col) = 60 * i + 10 * (3 * row + col), label i + 1.
+	 */
+	private static ImageDataset dataset() {
+		byte[] pixels = new byte[COUNT * ROWS * COLS];
+		int[] labels = new int[COUNT];
+
+		for(int i = 0; i < COUNT; i++) {
+			for(int k = 0; k < ROWS * COLS; k++) {
+				pixels[i * ROWS * COLS + k] = (byte) (60 * i + 10 * k);
+			}
+			labels[i] = i + 1;
+		}
+
+		return new ImageDataset(pixels, COUNT, ROWS, COLS, labels);
+	}
+
+	public void testAccess() {
+		ImageDataset images = dataset();
+
+		assertEquals(COUNT, images.getCount());
+		assertEquals(ROWS * COLS, images.getImageSize());
+		assertEquals(230, images.getPixel(3, 1, 2));
+		assertEquals(130, images.getPixel(2, 0, 1));
+		assertEquals(4, images.getLabel(3));
+	}
+
+	public void testNormalizeAndBinarize() {
+		ImageDataset images = dataset();
+
+		float[] normalized = images.normalize();
+		float[] binarized = images.binarize(ImageDataset.DEFAULT_BINARIZE_THRESHOLD);
+
+		for(int k = 0; k < normalized.length; k++) {
+			int pixel = images.getPixels()[k] & 0xFF;
+			assertEquals(pixel / 255.0f, normalized[k], 0);
+			assertEquals(pixel > 30 ? 1.0f : 0.0f, binarized[k], 0);
+		}
+	}
+
+	public void testDataSet() {
+		ImageDataset images = dataset();
+		DataSet dataSet = images.toDataSet(1, 3, false);
+
+		INDArray features = dataSet.getFeatureMatrix();
+		assertEquals(2, features.rows());
+		assertEquals(ROWS * COLS, features.columns());
+		assertEquals(images.getPixel(2, 1, 1) / 255.0, features.getDouble(1, 4), 1e-6);
+
+		INDArray labels = dataSet.getLabels();
+		assertEquals(10, labels.columns());
+		assertEquals(1.0, labels.getDouble(0, 2), 0);
+		assertEquals(1.0, labels.getDouble(1, 3), 0);
+		assertEquals(2.0, labels.sumNumber().doubleValue(), 0);
+	}
+
+	public void testSizeMismatch() {
+		try {
+			new ImageDataset(new byte[10], COUNT, ROWS, COLS, null);
+			fail();
+		}
+		catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
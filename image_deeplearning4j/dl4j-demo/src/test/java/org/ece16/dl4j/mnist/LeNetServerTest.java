@@ -0,0 +1,179 @@
+package org.ece16.dl4j.mnist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import junit.framework.TestCase;
+
+public class LeNetServerTest extends TestCase {
+
+	private static final int COUNT = 40;
+
+	private LeNetServer server;
+	private ImageDataset images;
+	private int[] expected;
+
+	@Override
+	protected void setUp() throws Exception {
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+				.seed(5)
+				.weightInit(WeightInit.XAVIER)
+				.list()
+				.layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.NEGATIVELOGLIKELIHOOD)
+						.nIn(LeNetServer.IMAGE_SIZE)
+						.nOut(10)
+						.activation("softmax")
+						.build())
+				.backprop(true)
+				.pretrain(false)
+				.build();
+
+		MultiLayerNetwork model = new MultiLayerNetwork(conf);
+		model.init();
+
+		byte[] pixels = new byte[COUNT * LeNetServer.IMAGE_SIZE];
+		new Random(7).nextBytes(pixels);
+		images = new ImageDataset(pixels, COUNT, 28, 28, null);
+
+		expected = new int[COUNT];
+		new BatchScorer(model).predict(images.features(0, COUNT, false), expected, null);
+
+		server = new LeNetServer(model, 0, 8, 16, 20000);
+		server.start();
+	}
+
+	@Override
+	protected void tearDown() {
+		server.stop();
+	}
+
+	private String post(byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/predict").openConnection();
+		connection.setDoOutput(true);
+		connection.setRequestMethod("POST");
+
+		try(OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+
+		assertEquals(200, connection.getResponseCode());
+		return read(connection.getInputStream());
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int n;
+		while((n = in.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		in.close();
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private byte[] image(int i) {
+		byte[] image = new byte[LeNetServer.IMAGE_SIZE];
+		System.arraycopy(images.getPixels(), i * image.length, image, 0, image.length);
+		return image;
+	}
+
+	public void testConcurrentRawImages() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		List<Future<String>> responses = new ArrayList<>();
+
+		for(int i = 0; i < COUNT; i++) {
+			final byte[] body = image(i);
+			responses.add(clients.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return post(body);
+				}
+			}));
+		}
+
+		for(int i = 0; i < COUNT; i++) {
+			String[] line = responses.get(i).get().trim().split(" ");
+			assertEquals(expected[i], Integer.parseInt(line[0]));
+			assertTrue(Float.parseFloat(line[1]) >= 0.1f);
+		}
+		clients.shutdown();
+
+		MicroBatcher batcher = server.getBatcher();
+		assertEquals(COUNT, batcher.getRequests());
+		assertEquals(COUNT, batcher.getImages());
+		assertTrue("batches " + batcher.getBatches(), batcher.getBatches() < COUNT);
+	}
+
+	public void testIdxBatch() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(MnistReader.IMAGE_FILE_MAGIC_NUMBER);
+		data.writeInt(COUNT);
+		data.writeInt(28);
+		data.writeInt(28);
+		data.write(images.getPixels());
+
+		String[] lines = post(bytes.toByteArray()).split("\n");
+		assertEquals(COUNT, lines.length);
+		for(int i = 0; i < COUNT; i++) {
+			assertEquals(expected[i], Integer.parseInt(lines[i].split(" ")[0]));
+		}
+
+		HttpURLConnection stats = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/stats").openConnection();
+		assertTrue(read(stats.getInputStream()).contains("images " + COUNT + "\n"));
+	}
+
+	private int status(byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/predict").openConnection();
+		connection.setDoOutput(true);
+		connection.setRequestMethod("POST");
+
+		try(OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+
+		return connection.getResponseCode();
+	}
+
+	private static byte[] idxHeader(int count, int rows, int cols) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(MnistReader.IMAGE_FILE_MAGIC_NUMBER);
+		data.writeInt(count);
+		data.writeInt(rows);
+		data.writeInt(cols);
+		data.write(new byte[100]);
+		return bytes.toByteArray();
+	}
+
+	public void testInvalidRequest() throws Exception {
+		assertEquals(400, status(new byte[100]));
+	}
+
+	public void testInvalidIdxHeader() throws Exception {
+		assertEquals(400, status(idxHeader(-5, 28, 28)));
+		assertEquals(400, status(idxHeader(3, 65536, 65536)));
+		assertEquals(400, status(idxHeader(1, 10, 10)));
+	}
+}
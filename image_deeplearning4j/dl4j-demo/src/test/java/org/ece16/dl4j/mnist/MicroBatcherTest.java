@@ -0,0 +1,112 @@
+package org.ece16.dl4j.mnist;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import junit.framework.TestCase;
+
+public class MicroBatcherTest extends TestCase {
+
+	/**
+	 * Fails the first batch with an Error, predicts label 3 for every image afterwards.
+	 */
+	private static class FailingScorer extends BatchScorer {
+
+		private boolean failed;
+
+		FailingScorer() {
+			super(null);
+		}
+
+		@Override
+		public void predict(INDArray features, int[] labels, float[] confidence) {
+			if(!failed) {
+				failed = true;
+				throw new OutOfMemoryError("native allocation failed");
+			}
+
+			for(int i = 0; i < features.rows(); i++) {
+				labels[i] = 3;
+				confidence[i] = 1;
+			}
+		}
+	}
+
+	/**
+	 * Predicts the first feature of every image as its label, checks the batch size.
+	 */
+	private static class EchoScorer extends BatchScorer {
+
+		private final int maxBatch;
+
+		EchoScorer(int maxBatch) {
+			super(null);
+			this.maxBatch = maxBatch;
+		}
+
+		@Override
+		public void predict(INDArray features, int[] labels, float[] confidence) {
+			assertTrue(features.rows() <= maxBatch);
+
+			for(int i = 0; i < features.rows(); i++) {
+				labels[i] = Math.round(features.getFloat(i, 0));
+				confidence[i] = 1;
+			}
+		}
+	}
+
+	public void testSplitLargeRequest() throws Exception {
+		MicroBatcher batcher = new MicroBatcher(new EchoScorer(4), 2, 4, 0);
+		batcher.start();
+
+		float[] features = new float[2 * 10];
+		for(int i = 0; i < 10; i++) {
+			features[2 * i] = i;
+		}
+
+		int[] labels = new int[10];
+		float[] confidence = new float[10];
+		batcher.predict(features, 10, labels, confidence);
+		batcher.shutdown();
+
+		for(int i = 0; i < 10; i++) {
+			assertEquals(i, labels[i]);
+			assertEquals(1, confidence[i], 0);
+		}
+
+		// parts of 4, 4 and 2 images
+		assertEquals(3, batcher.getRequests());
+		assertEquals(10, batcher.getImages());
+	}
+
+	public void testErrorAndShutdown() throws Exception {
+		MicroBatcher batcher = new MicroBatcher(new FailingScorer(), 4, 8, 0);
+		batcher.start();
+
+		int[] labels = new int[2];
+		float[] confidence = new float[2];
+
+		try {
+			batcher.predict(new float[8], 2, labels, confidence);
+			fail();
+		}
+		catch(RuntimeException e) {
+			assertTrue(e.getCause() instanceof OutOfMemoryError);
+		}
+
+		// the scoring thread survives the error
+		batcher.predict(new float[8], 2, labels, confidence);
+		assertEquals(3, labels[1]);
+		assertEquals(2, batcher.getBatches());
+		assertEquals(2, batcher.getRequests());
+		assertEquals(1, batcher.getFailures());
+
+		batcher.shutdown();
+		try {
+			batcher.predict(new float[8], 2, labels, confidence);
+			fail();
+		}
+		catch(IllegalStateException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.ece16.dl4j.mnist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+import junit.framework.TestCase;
+
+public class PrefetchingDataSetIteratorTest extends TestCase {
+
+	private static final int COUNT = 23;
+	private static final int SIZE = 6;
+
+	/**
+	 * COUNT images of 2 x 3 pixels, every pixel of image i is 10 * i, labels are i % 10.
+	 */
+	private static ImageDataset dataset() {
+		byte[] pixels = new byte[COUNT * SIZE];
+		int[] labels = new int[COUNT];
+
+		for(int i = 0; i < COUNT; i++) {
+			for(int k = 0; k < SIZE; k++) {
+				pixels[i * SIZE + k] = (byte) (10 * i);
+			}
+			labels[i] = i % 10;
+		}
+
+		return new ImageDataset(pixels, COUNT, 2, 3, labels);
+	}
+
+	/**
+	 * Checks that every row of the batch is a consistent image and label, returns the image indices.
+	 */
+	private static int[] imageIndices(DataSet dataSet) {
+		INDArray features = dataSet.getFeatureMatrix();
+		INDArray labels = dataSet.getLabels();
+		int[] indices = new int[features.rows()];
+
+		for(int j = 0; j < indices.length; j++) {
+			int i = (int) Math.round(features.getDouble(j, 0) * 255 / 10);
+			for(int k = 0; k < SIZE; k++) {
+				assertEquals(10 * i / 255.0, features.getDouble(j, k), 1e-6);
+			}
+			assertEquals(1.0, labels.getDouble(j, i % 10), 0);
+			assertEquals(1.0, labels.getRow(j).sumNumber().doubleValue(), 0);
+			indices[j] = i;
+		}
+
+		return indices;
+	}
+
+	public void testOrder() {
+		PrefetchingDataSetIterator iterator = new PrefetchingDataSetIterator(dataset(), 5, false, false, 0, 2, 2);
+		try {
+			for(int epoch = 0; epoch < 2; epoch++) {
+				List<DataSet> batches = new ArrayList<>();
+				int next = 0;
+				while(iterator.hasNext()) {
+					DataSet dataSet = iterator.next();
+					batches.add(dataSet);
+
+					int[] indices = imageIndices(dataSet);
+					assertEquals(next == 20 ? 3 : 5, indices.length);
+
+					for(int i : indices) {
+						assertEquals(next++, i);
+					}
+					assertEquals(next, iterator.cursor());
+				}
+
+				assertEquals(COUNT, next);
+				iterator.reset();
+
+				// returned batches stay valid
+				for(int b = 0; b < batches.size(); b++) {
+					assertEquals(5 * b, imageIndices(batches.get(b))[0]);
+				}
+			}
+		}
+		finally {
+			iterator.shutdown();
+		}
+	}
+
+	public void testShuffle() {
+		PrefetchingDataSetIterator iterator = new PrefetchingDataSetIterator(dataset(), 4, false, true, 7, 3, 2);
+		try {
+			int[] previous = null;
+			for(int epoch = 0; epoch < 2; epoch++) {
+				int[] order = new int[COUNT];
+				boolean[] seen = new boolean[COUNT];
+				int n = 0;
+
+				while(iterator.hasNext()) {
+					for(int i : imageIndices(iterator.next())) {
+						assertFalse(seen[i]);
+						seen[i] = true;
+						order[n++] = i;
+					}
+				}
+
+				assertEquals(COUNT, n);
+				if(previous != null) {
+					assertFalse(Arrays.equals(previous, order));
+				}
+				previous = order;
+				iterator.reset();
+			}
+		}
+		finally {
+			iterator.shutdown();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package org.ece16.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.ece16.lof.DataNode;
+
+/**
+ * Synthetic data generators and access to the bundled data files for the benchmarks.
+ * The data directory defaults to ../data and can be changed with -Ddata.dir=...
+ */
+public class BenchmarkData {
+
+	public static final String DATA_DIR_PROPERTY = "data.dir";
+	public static final String DEFAULT_DATA_DIR = "../data";
+
+	/**
+	 * @return path of the bundled data file with the specified name
+	 */
+	public static String dataFile(String name) throws IOException {
+		File file = new File(System.getProperty(DATA_DIR_PROPERTY, DEFAULT_DATA_DIR), name);
+
+		if(!file.isFile()) {
+			throw new IOException("data file " + file + " not found, set -D" + DATA_DIR_PROPERTY + "=<directory>");
+		}
+
+		return file.getPath();
+	}
+
+	/**
+	 * @return n points uniformly distributed in the unit cube
+	 */
+	public static double[][] randomPoints(int n, int dimension, long seed) {
+		Random random = new Random(seed);
+		double[][] points = new double[n][dimension];
+
+		for(int i = 0; i < n; i++) {
+			for(int d = 0; d < dimension; d++) {
+				points[i][d] = random.nextDouble();
+			}
+		}
+
+		return points;
+	}
+
+	public static List<DataNode> dataNodes(double[][] points) {
+		List<DataNode> nodes = new ArrayList<DataNode>(points.length);
+
+		for(int i = 0; i < points.length; i++) {
+			nodes.add(new DataNode(Integer.toString(i), "", points[i]));
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * @return matrix of the specified rank plus Gaussian noise, with the given fraction 
+	 * of entries replaced by large values
+	 */
+	public static double[][] lowRankPlusSparse(int rows, int cols, int rank, double outlierFraction, long seed) {
+		Random random = new Random(seed);
+		double[][] u = new double[rows][rank];
+		double[][] v = new double[rank][cols];
+		double[][] matrix = new double[rows][cols];
+
+		for(int i = 0; i < rows; i++) {
+			for(int r = 0; r < rank; r++) {
+				u[i][r] = random.nextGaussian();
+			}
+		}
+
+		for(int r = 0; r < rank; r++) {
+			for(int j = 0; j < cols; j++) {
+				v[r][j] = random.nextGaussian();
+			}
+		}
+
+		for(int i = 0; i < rows; i++) {
+			for(int j = 0; j < cols; j++) {
+				double value = 0.1 * random.nextGaussian();
+
+				for(int r = 0; r < rank; r++) {
+					value += u[i][r] * v[r][j];
+				}
+
+				if(random.nextDouble() < outlierFraction) {
+					value += 10.0 * (random.nextBoolean() ? 1.0 : -1.0);
+				}
+
+				matrix[i][j] = value;
+			}
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Reads the numeric attributes of an ARFF file, quoted (nominal) values like class labels are skipped.
+	 */
+	public static double[][] readArff(String filename) throws IOException {
+		List<double[]> rows = new ArrayList<double[]>();
+		BufferedReader reader = new BufferedReader(new FileReader(filename));
+		boolean data = false;
+
+		try {
+			String line;
+
+			while((line = reader.readLine()) != null) {
+				line = line.trim();
+
+				if(line.isEmpty() || line.startsWith("%")) {
+					continue;
+				}
+
+				if(!data) {
+					data = line.toLowerCase().startsWith("@data");
+					continue;
+				}
+
+				String[] cells = line.split(",");
+				double[] row = new double[cells.length];
+				int cols = 0;
+
+				for(String cell: cells) {
+					if(!cell.startsWith("'")) {
+						row[cols++] = Double.parseDouble(cell);
+					}
+				}
+
+				rows.add(Arrays.copyOf(row, cols));
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		return rows.toArray(new double[rows.size()][]);
+	}
+}
@@ -0,0 +1,63 @@
+package org.ece16.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.ece16.lof.BreastCancerWisconsinDataLoader;
+import org.ece16.lof.LocalOutlierFactor;
+import org.ece16.lof.LofResult;
+import org.ece16.lof.PointStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LOF on the bundled wdbc (569 x 30) and mammography (11183 x 6) data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatasetLofBenchmark {
+
+	@Param({"wdbc", "mammography"})
+	public String dataset;
+
+	@Param({"10", "20"})
+	public int k;
+
+	@Param({"linear", "kdtree", "vptree"})
+	public String index;
+
+	private PointStore points;
+	private LocalOutlierFactor lof;
+
+	@Setup
+	public void setup() throws IOException {
+		if("wdbc".equals(dataset)) {
+			points = new BreastCancerWisconsinDataLoader(BenchmarkData.dataFile("wdbc.data")).getPointStore(false);
+		}
+		else {
+			points = PointStore.of(BenchmarkData.readArff(BenchmarkData.dataFile("mammography.arff")));
+		}
+
+		lof = new LocalOutlierFactor();
+		lof.setK(k);
+		lof.setIndex(LofBenchmark.createIndex(index));
+	}
+
+	@Benchmark
+	public LofResult getOutlierScores() {
+		return lof.getOutlierScores(points);
+	}
+}
@@ -0,0 +1,98 @@
+package org.ece16.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ece16.lof.DataNode;
+import org.ece16.lof.DistanceMetric;
+import org.ece16.lof.PointStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Euclidean distance of all pairs of a small point set: the original Math.pow
+ * implementation of DataNode.distance against the current one and the point store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+	private static final int POINTS = 64;
+
+	@Param({"4", "30", "784"})
+	public int dimension;
+
+	private DataNode[] nodes;
+	private PointStore points;
+
+	@Setup
+	public void setup() {
+		double[][] data = BenchmarkData.randomPoints(POINTS, dimension, 1);
+		nodes = BenchmarkData.dataNodes(data).toArray(new DataNode[POINTS]);
+		points = PointStore.of(data);
+	}
+
+	@Benchmark
+	public double powDistance() {
+		double sum = 0.0;
+
+		for(int i = 0; i < POINTS; i++) {
+			for(int j = 0; j < POINTS; j++) {
+				sum += powDistance(nodes[i].getDimensioin(), nodes[j].getDimensioin());
+			}
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public double dataNodeDistance() {
+		double sum = 0.0;
+
+		for(int i = 0; i < POINTS; i++) {
+			for(int j = 0; j < POINTS; j++) {
+				sum += nodes[i].distance(nodes[j]);
+			}
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public double pointStoreDistance() {
+		double sum = 0.0;
+
+		for(int i = 0; i < POINTS; i++) {
+			for(int j = 0; j < POINTS; j++) {
+				sum += DistanceMetric.EUCLIDEAN.distance(points, i, j);
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Distance as implemented by the original DataNode.distance.
+	 */
+	private static double powDistance(double[] a, double[] b) {
+		double dis = 0.0;
+
+		for(int i = 0; i < a.length; i++) {
+			dis += Math.pow(a[i] - b[i], 2);
+		}
+
+		return Math.pow(dis, 0.5);
+	}
+}
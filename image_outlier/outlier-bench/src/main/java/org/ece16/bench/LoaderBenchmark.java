@@ -0,0 +1,55 @@
+package org.ece16.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.ece16.lof.BreastCancerWisconsinDataLoader;
+import org.ece16.surus.BostonHousingDataLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the bundled data files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoaderBenchmark {
+
+	private String wdbc;
+	private String housing;
+	private String mammography;
+
+	@Setup
+	public void setup() throws IOException {
+		wdbc = BenchmarkData.dataFile("wdbc.data");
+		housing = BenchmarkData.dataFile("housing.data");
+		mammography = BenchmarkData.dataFile("mammography.arff");
+	}
+
+	@Benchmark
+	public BreastCancerWisconsinDataLoader wdbc() throws IOException {
+		return new BreastCancerWisconsinDataLoader(wdbc);
+	}
+
+	@Benchmark
+	public double[][] housing() throws IOException {
+		return BostonHousingDataLoader.doubleMatrixFromFile(housing);
+	}
+
+	@Benchmark
+	public double[][] mammography() throws IOException {
+		return BenchmarkData.readArff(mammography);
+	}
+}
@@ -0,0 +1,81 @@
+package org.ece16.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ece16.lof.DataNode;
+import org.ece16.lof.KdTreeIndex;
+import org.ece16.lof.KnnIndex;
+import org.ece16.lof.LinearScanIndex;
+import org.ece16.lof.LocalOutlierFactor;
+import org.ece16.lof.LofResult;
+import org.ece16.lof.PointStore;
+import org.ece16.lof.VpTreeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LOF on uniformly distributed synthetic points.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LofBenchmark {
+
+	@Param({"1000", "5000"})
+	public int n;
+
+	@Param({"4", "30"})
+	public int dimension;
+
+	@Param({"10", "20"})
+	public int k;
+
+	@Param({"linear", "kdtree", "vptree"})
+	public String index;
+
+	private List<DataNode> nodes;
+	private PointStore points;
+	private LocalOutlierFactor lof;
+
+	@Setup
+	public void setup() {
+		double[][] data = BenchmarkData.randomPoints(n, dimension, 1);
+		nodes = BenchmarkData.dataNodes(data);
+		points = PointStore.of(data);
+
+		lof = new LocalOutlierFactor();
+		lof.setK(k);
+		lof.setIndex(createIndex(index));
+	}
+
+	static KnnIndex createIndex(String name) {
+		if("linear".equals(name)) { return new LinearScanIndex(); }
+		if("kdtree".equals(name)) { return new KdTreeIndex(); }
+		if("vptree".equals(name)) { return new VpTreeIndex(); }
+
+		throw new IllegalArgumentException("unknown index " + name);
+	}
+
+	@Benchmark
+	public List<DataNode> getOutlierNodes() {
+		return lof.getOutlierNodes(nodes);
+	}
+
+	@Benchmark
+	public LofResult getOutlierScores() {
+		return lof.getOutlierScores(points);
+	}
+}
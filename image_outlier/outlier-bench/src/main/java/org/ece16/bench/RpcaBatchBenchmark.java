@@ -0,0 +1,83 @@
+package org.ece16.bench;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.surus.math.RPCA;
+import org.surus.math.RpcaBatch;
+import org.surus.math.RpcaResult;
+import org.surus.math.RpcaTask;
+
+/**
+ * Throughput of many small independent decompositions: one after another with {@link RPCA}
+ * and on the worker pool of an {@link RpcaBatch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RpcaBatchBenchmark {
+
+	@Param({"200"})
+	public int matrices;
+
+	@Param({"24"})
+	public int rows;
+
+	@Param({"7"})
+	public int cols;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private List<RpcaTask> tasks;
+	private RpcaBatch batch;
+
+	@Setup
+	public void setup() {
+		tasks = new ArrayList<RpcaTask>();
+		double spenalty = 1.4 / Math.sqrt(Math.max(rows, cols));
+
+		for(int t = 0; t < matrices; t++) {
+			tasks.add(new RpcaTask("series" + t, BenchmarkData.lowRankPlusSparse(rows, cols, 2, 0.02, t), 1.0, spenalty));
+		}
+
+		batch = new RpcaBatch(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		batch.shutdown();
+	}
+
+	@Benchmark
+	public void sequential(Blackhole blackhole) {
+		for(RpcaTask task : tasks) {
+			blackhole.consume(new RPCA(task.getData(), task.getLpenalty(), task.getSpenalty()));
+		}
+	}
+
+	@Benchmark
+	public void batch(Blackhole blackhole) {
+		for(Iterator<RpcaResult> results = batch.decompose(tasks); results.hasNext(); ) {
+			blackhole.consume(results.next());
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.ece16.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.ece16.lof.BreastCancerWisconsinDataLoader;
+import org.ece16.surus.BostonHousingDataLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.surus.math.FloatRPCA;
+import org.surus.math.RPCA;
+
+/**
+ * RPCA decomposition in double ({@link RPCA}) and single precision ({@link FloatRPCA}) of a synthetic
+ * rank 3 matrix with sparse outliers and of the bundled Boston housing (506 x 14, dataset "housing")
+ * and WDBC data (as loaded for LOF, dataset "wdbc"), rows and cols are ignored for the bundled data.
+ * Penalties follow the Surus defaults: 1 for L and 1.4 / sqrt(max(rows, cols)) for S.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RpcaBenchmark {
+
+	@Param({"synthetic"})
+	public String dataset;
+
+	@Param({"100", "500"})
+	public int rows;
+
+	@Param({"20", "100"})
+	public int cols;
+
+	private double[][] data;
+	private double spenalty;
+
+	@Setup
+	public void setup() throws IOException {
+		if("housing".equals(dataset)) {
+			data = BostonHousingDataLoader.doubleMatrixFromFile(BenchmarkData.dataFile("housing.data"));
+		}
+		else if("wdbc".equals(dataset)) {
+			data = new BreastCancerWisconsinDataLoader(BenchmarkData.dataFile("wdbc.data")).getMatrix();
+		}
+		else {
+			data = BenchmarkData.lowRankPlusSparse(rows, cols, 3, 0.02, 1);
+		}
+
+		spenalty = 1.4 / Math.sqrt(Math.max(data.length, data[0].length));
+	}
+
+	@Benchmark
+	public RPCA decompose() {
+		return new RPCA(data, 1.0, spenalty);
+	}
+
+	@Benchmark
+	public FloatRPCA decomposeFloat() {
+		return new FloatRPCA(data, 1.0, spenalty);
+	}
+}
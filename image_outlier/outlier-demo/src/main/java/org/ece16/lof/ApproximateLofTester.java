@@ -0,0 +1,81 @@
+package org.ece16.lof;
+
+import java.util.Random;
+
+/**
+ * Compares LOF with {@link RpForestIndex} to the exact linear scan on synthetic high dimensional data:
+ * Gaussian clusters with a few uniformly distributed outliers.
+ **/
+public class ApproximateLofTester {
+
+	public static void main(String[] args) {
+
+		if(args.length > 6) {
+			System.err.println("usage: java org.ece16.lof.ApproximateLofTester [n [dimension [k [trees [leaf-size [top-n]]]]]]");
+			System.exit(1);
+		}
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 784;
+		int k = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		int trees = args.length > 3 ? Integer.parseInt(args[3]) : RpForestIndex.DEFAULT_TREES;
+		int leafSize = args.length > 4 ? Integer.parseInt(args[4]) : RpForestIndex.DEFAULT_LEAF_SIZE;
+		int topN = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+
+		PointStore points = clusters(n, dimension, 10, 0.01, 1);
+
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setK(k);
+		lof.setParallelism(Runtime.getRuntime().availableProcessors());
+
+		long start = System.nanoTime();
+		LofResult exact = lof.getOutlierScores(points);
+		double exactSeconds = (System.nanoTime() - start) / 1e9;
+
+		lof.setIndex(new RpForestIndex(trees, leafSize, 0));
+		start = System.nanoTime();
+		LofResult approximate = lof.getOutlierScores(points);
+		double approximateSeconds = (System.nanoTime() - start) / 1e9;
+		lof.shutdown();
+
+		System.out.printf("n %d dimension %d k %d trees %d leaf size %d\n", n, dimension, k, trees, leafSize);
+		System.out.printf("exact %.2fs approximate %.2fs\n", exactSeconds, approximateSeconds);
+		System.out.println(LofComparison.compare(exact, approximate, topN));
+
+		System.exit(0);
+	}
+
+	/**
+	 * @return n points, the given fraction uniformly distributed in [-1, 1]^dimension
+	 * and the others in Gaussian clusters with random centres in the same cube
+	 */
+	private static PointStore clusters(int n, int dimension, int clusters, double outlierFraction, long seed) {
+		Random random = new Random(seed);
+		PointStore points = new PointStore(n, dimension, false);
+		double[][] centres = new double[clusters][dimension];
+		double[] scales = new double[clusters];
+
+		for(int c = 0; c < clusters; c++) {
+			for(int d = 0; d < dimension; d++) {
+				centres[c][d] = 2.0 * random.nextDouble() - 1.0;
+			}
+			scales[c] = 0.05 + 0.1 * random.nextDouble();
+		}
+
+		for(int i = 0; i < n; i++) {
+			if(random.nextDouble() < outlierFraction) {
+				for(int d = 0; d < dimension; d++) {
+					points.set(i, d, 2.0 * random.nextDouble() - 1.0);
+				}
+			}
+			else {
+				int c = random.nextInt(clusters);
+				for(int d = 0; d < dimension; d++) {
+					points.set(i, d, centres[c][d] + scales[c] * random.nextGaussian());
+				}
+			}
+		}
+
+		return points;
+	}
+}
@@ -34,6 +34,13 @@ public class BreastCancerWisconsinDataLoader {
 		return nodes;
 	}
 
+	/**
+	 * @return feature vectors in a point store, point ids correspond to the matrix rows
+	 */
+	public PointStore getPointStore(boolean offHeap) {
+		return PointStore.of(matrix, offHeap);
+	}
+
 	public double [][] getMatrix() {
 		return matrix;
 	}
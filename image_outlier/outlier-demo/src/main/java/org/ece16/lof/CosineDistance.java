@@ -0,0 +1,54 @@
+package org.ece16.lof;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Cosine distance 1 - cos(a, b) in the range [0, 2]. 
+ * The distance to a zero vector is defined as 1.
+ * As the triangle inequality does not hold this distance only works with {@link LinearScanIndex}.
+ */
+public class CosineDistance extends DistanceMetric {
+
+	@Override
+	public double distance(PointStore points, int i, int j) {
+		int n = points.dimension();
+		double ab = 0.0, aa = 0.0, bb = 0.0;
+
+		if(points.array() != null) {
+			double[] data = points.array();
+			for(int a = i * n, b = j * n, end = a + n; a < end; a++, b++) {
+				ab += data[a] * data[b];
+				aa += data[a] * data[a];
+				bb += data[b] * data[b];
+			}
+		}
+		else {
+			DoubleBuffer data = points.buffer();
+			for(int a = i * n, b = j * n, end = a + n; a < end; a++, b++) {
+				double x = data.get(a);
+				double y = data.get(b);
+				ab += x * y;
+				aa += x * x;
+				bb += y * y;
+			}
+		}
+
+		double norms = Math.sqrt(aa * bb);
+
+		if(norms == 0.0) {
+			return 1.0;
+		}
+
+		return Math.max(0.0, 1.0 - ab / norms);
+	}
+
+	@Override
+	public boolean isMetric() {
+		return false;
+	}
+
+	@Override
+	public boolean isCoordinateBounded() {
+		return false;
+	}
+}
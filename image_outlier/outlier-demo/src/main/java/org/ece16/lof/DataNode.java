@@ -40,13 +40,14 @@ public class DataNode {
 	 * @return Euclidian distance between the two nodes
 	 */
 	public double distance(DataNode node) {  
-		double dis = 0.0;  
-
-		for (int i = 0; i < dimension.length; i++) {  
-			dis += Math.pow(dimension[i] - node.dimension[i], 2);  
-		}
+		return distance(dimension, node.dimension);
+	}  
 
-		return Math.pow(dis, 0.5);  
+	/**
+	 * @return Euclidian distance between the two points
+	 */
+	public static double distance(double[] a, double[] b) {  
+		return Math.sqrt(DistanceKernels.squaredEuclidean(a, 0, b, 0, a.length));  
 	}  
 
 	public String getNodeName() {  
@@ -0,0 +1,113 @@
+package org.ece16.lof;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Distance kernels on flat coordinate arrays.
+ *
+ * The kernels are plain counted loops over contiguous coordinates without calls to 
+ * Math.pow, which the JIT compiler unrolls and keeps free of bounds checks. Sums are 
+ * accumulated in coordinate order, so results match a straightforward implementation.
+ */
+public final class DistanceKernels {
+
+	private DistanceKernels() {
+	}
+
+	/**
+	 * @return squared Euclidian distance of a[ao..ao+n) and b[bo..bo+n)
+	 */
+	public static double squaredEuclidean(double[] a, int ao, double[] b, int bo, int n) {
+		double sum = 0.0;
+
+		for(int i = 0; i < n; i++) {
+			double d = a[ao + i] - b[bo + i];
+			sum += d * d;
+		}
+
+		return sum;
+	}
+
+	public static double squaredEuclidean(DoubleBuffer a, int ao, DoubleBuffer b, int bo, int n) {
+		double sum = 0.0;
+
+		for(int i = 0; i < n; i++) {
+			double d = a.get(ao + i) - b.get(bo + i);
+			sum += d * d;
+		}
+
+		return sum;
+	}
+
+	/**
+	 * @return Manhattan (L1) distance of a[ao..ao+n) and b[bo..bo+n)
+	 */
+	public static double manhattan(double[] a, int ao, double[] b, int bo, int n) {
+		double sum = 0.0;
+
+		for(int i = 0; i < n; i++) {
+			sum += Math.abs(a[ao + i] - b[bo + i]);
+		}
+
+		return sum;
+	}
+
+	public static double manhattan(DoubleBuffer a, int ao, DoubleBuffer b, int bo, int n) {
+		double sum = 0.0;
+
+		for(int i = 0; i < n; i++) {
+			sum += Math.abs(a.get(ao + i) - b.get(bo + i));
+		}
+
+		return sum;
+	}
+
+	/**
+	 * @return dot product of point i of the store and the vector v
+	 */
+	public static double dot(PointStore points, int i, double[] v) {
+		int n = points.dimension();
+		double sum = 0.0;
+
+		if(points.array() != null) {
+			double[] data = points.array();
+			for(int d = 0, pos = i * n; d < n; d++, pos++) {
+				sum += data[pos] * v[d];
+			}
+		}
+		else {
+			DoubleBuffer data = points.buffer();
+			for(int d = 0, pos = i * n; d < n; d++, pos++) {
+				sum += data.get(pos) * v[d];
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * @return squared Euclidian distance of the two points of the store
+	 */
+	public static double squaredEuclidean(PointStore points, int i, int j) {
+		int n = points.dimension();
+
+		if(points.array() != null) {
+			return squaredEuclidean(points.array(), i * n, points.array(), j * n, n);
+		}
+
+		return squaredEuclidean(points.buffer(), i * n, points.buffer(), j * n, n);
+	}
+
+	/**
+	 * @return Manhattan distance of the two points of the store
+	 */
+	public static double manhattan(PointStore points, int i, int j) {
+		int n = points.dimension();
+
+		if(points.array() != null) {
+			return manhattan(points.array(), i * n, points.array(), j * n, n);
+		}
+
+		return manhattan(points.buffer(), i * n, points.buffer(), j * n, n);
+	}
+}
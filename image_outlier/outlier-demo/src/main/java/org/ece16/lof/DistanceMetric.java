@@ -0,0 +1,52 @@
+package org.ece16.lof;
+
+/**
+ * Distance function used by the k-nearest neighbour indexes and {@link LocalOutlierFactor}.
+ *
+ * Indexes rank candidates by {@link #rankDistance(PointStore, int, int)}, which has the same
+ * order as the distance but may be cheaper to compute (the squared distance for the Euclidian 
+ * metric). Only the distances of the selected neighbours are converted with {@link #toDistance(double)}.
+ */
+public abstract class DistanceMetric {
+
+	public static final DistanceMetric EUCLIDEAN = new EuclideanDistance();
+	public static final DistanceMetric MANHATTAN = new ManhattanDistance();
+	public static final DistanceMetric COSINE = new CosineDistance();
+
+	/**
+	 * @return distance between the points i and j of the store
+	 */
+	public abstract double distance(PointStore points, int i, int j);
+
+	/**
+	 * @return value that orders point pairs like the distance
+	 */
+	public double rankDistance(PointStore points, int i, int j) {
+		return distance(points, i, j);
+	}
+
+	/**
+	 * Converts a rank distance into a distance.
+	 */
+	public double toDistance(double rank) {
+		return rank;
+	}
+
+	/**
+	 * Converts a distance into a rank distance.
+	 */
+	public double toRank(double distance) {
+		return distance;
+	}
+
+	/**
+	 * @return true if the triangle inequality holds, required by {@link VpTreeIndex}
+	 */
+	public abstract boolean isMetric();
+
+	/**
+	 * @return true if the difference in any single coordinate never exceeds the distance, 
+	 * required by {@link KdTreeIndex}
+	 */
+	public abstract boolean isCoordinateBounded();
+}
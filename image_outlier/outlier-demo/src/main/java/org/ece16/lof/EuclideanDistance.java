@@ -0,0 +1,37 @@
+package org.ece16.lof;
+
+/**
+ * Euclidian (L2) distance, ranks candidates by the squared distance.
+ */
+public class EuclideanDistance extends DistanceMetric {
+
+	@Override
+	public double distance(PointStore points, int i, int j) {
+		return Math.sqrt(DistanceKernels.squaredEuclidean(points, i, j));
+	}
+
+	@Override
+	public double rankDistance(PointStore points, int i, int j) {
+		return DistanceKernels.squaredEuclidean(points, i, j);
+	}
+
+	@Override
+	public double toDistance(double rank) {
+		return Math.sqrt(rank);
+	}
+
+	@Override
+	public double toRank(double distance) {
+		return distance * distance;
+	}
+
+	@Override
+	public boolean isMetric() {
+		return true;
+	}
+
+	@Override
+	public boolean isCoordinateBounded() {
+		return true;
+	}
+}
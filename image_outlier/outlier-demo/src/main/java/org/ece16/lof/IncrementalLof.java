@@ -0,0 +1,425 @@
+package org.ece16.lof;
+
+import java.util.Arrays;
+
+/**
+ * Incremental LOF for data streams, following Pokrajac et al., "Incremental Local Outlier
+ * Detection for Data Streams" (IEEE CIDM 2007).
+ *
+ * Points are kept in a window of fixed capacity. Inserting a point only updates the points whose
+ * neighbourhood, k-distance, reach density or LOF actually change: the reverse neighbours of the
+ * new point, their reverse neighbours and the reverse neighbours of those. The same holds for
+ * removing a point, either explicitly or because the window is full and the oldest point is evicted.
+ *
+ * Neighbourhoods, reach distances and LOF values are defined as in the default mode of
+ * {@link LocalOutlierFactor}, so after any sequence of inserts and removes the scores equal
+ * a batch run over the points in the window. Scores are only meaningful once the window holds
+ * at least k points.
+ *
+ * The nearest neighbours of a new point are found by a linear scan over the window, so an insert
+ * costs O(n*d) distance work plus O(k^2) bookkeeping for a window of n points. A removal rescans
+ * the window for each of the (on average k) points that lost a neighbour. This class is not thread safe.
+ */
+public class IncrementalLof {
+
+	private final int k;
+	private final int width;
+	private final int capacity;
+	private final PointStore points;
+	private DistanceMetric metric = DistanceMetric.EUCLIDEAN;
+
+	// neighbours of slot i in positions i*width .. i*width+count[i]-1, sorted by distance and id
+	private final int[] neighbors;
+	private final double[] distances;
+	private final int[] neighborCount;
+	private final double[] kDistance;
+	private final double[] reachDensity;
+	private final double[] lof;
+
+	// slots that have slot i as a neighbour
+	private final int[][] reverse;
+	private final int[] reverseCount;
+
+	// active slots as a list in insertion order, free slots as a stack
+	private final boolean[] active;
+	private final int[] prev;
+	private final int[] next;
+	private int oldest = -1;
+	private int newest = -1;
+	private final int[] freeSlots;
+	private int free;
+	private int size;
+
+	private final NeighborQueue queue;
+	private final IdSet kDistanceSet;
+	private final IdSet reachDensitySet;
+	private final IdSet lofSet;
+
+	/**
+	 * @param k LOF parameter, the neighbourhood of a point holds its k-1 nearest other points
+	 * @param dimension dimension of the points
+	 * @param capacity maximum number of points in the window, inserting into a full window evicts the oldest point
+	 */
+	public IncrementalLof(int k, int dimension, int capacity) {
+		if(k < 2 || capacity < k) {
+			throw new IllegalArgumentException("k=" + k + " is not valid for a window of " + capacity + " points");
+		}
+
+		this.k = k;
+		this.width = k - 1;
+		this.capacity = capacity;
+
+		points = new PointStore(capacity, dimension, false);
+		neighbors = new int[capacity * width];
+		distances = new double[capacity * width];
+		neighborCount = new int[capacity];
+		kDistance = new double[capacity];
+		reachDensity = new double[capacity];
+		lof = new double[capacity];
+		reverse = new int[capacity][];
+		reverseCount = new int[capacity];
+
+		active = new boolean[capacity];
+		prev = new int[capacity];
+		next = new int[capacity];
+		freeSlots = new int[capacity];
+
+		for(int i = 0; i < capacity; i++) {
+			freeSlots[i] = capacity - 1 - i;
+			reverse[i] = new int[width];
+		}
+
+		free = capacity;
+		queue = new NeighborQueue(width);
+		kDistanceSet = new IdSet(capacity);
+		reachDensitySet = new IdSet(capacity);
+		lofSet = new IdSet(capacity);
+	}
+
+	/**
+	 * Sets the distance metric (default: {@link DistanceMetric#EUCLIDEAN}), only possible for an empty window.
+	 */
+	public void setMetric(DistanceMetric metric) {
+		if(size > 0) {
+			throw new IllegalStateException("metric can only be changed for an empty window");
+		}
+
+		this.metric = metric;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int id) {
+		return id >= 0 && id < capacity && active[id];
+	}
+
+	public double getLof(int id) {
+		checkActive(id);
+		return lof[id];
+	}
+
+	public double getReachDensity(int id) {
+		checkActive(id);
+		return reachDensity[id];
+	}
+
+	public double getkDistance(int id) {
+		checkActive(id);
+		return kDistance[id];
+	}
+
+	/**
+	 * @return copy of the coordinates of the specified point
+	 */
+	public double[] getPoint(int id) {
+		checkActive(id);
+		return points.getPoint(id);
+	}
+
+	/**
+	 * Adds a point to the window and updates the affected scores.
+	 * If the window is full the oldest point is removed first.
+	 * @return id of the new point, valid until the point is removed (ids of removed points are reused)
+	 */
+	public int insert(double[] point) {
+		if(size == capacity) {
+			remove(oldest);
+		}
+
+		int id = freeSlots[--free];
+		points.setPoint(id, point);
+		link(id);
+
+		kDistanceSet.clear();
+		queue.clear();
+
+		// nearest neighbours of the new point and points that get the new point as neighbour
+		for(int j = oldest; j >= 0; j = next[j]) {
+			if(j == id) {
+				continue;
+			}
+
+			double d = metric.distance(points, id, j);
+			queue.offer(j, d);
+
+			if(accepts(j, id, d)) {
+				int evicted = addNeighbor(j, id, d);
+
+				if(evicted >= 0) {
+					removeReverse(evicted, j);
+				}
+
+				addReverse(id, j);
+				kDistanceSet.add(j);
+			}
+		}
+
+		setNeighbors(id, queue);
+		kDistanceSet.add(id);
+
+		update();
+
+		return id;
+	}
+
+	/**
+	 * Removes a point from the window and updates the affected scores.
+	 */
+	public void remove(int id) {
+		checkActive(id);
+
+		// points that lose a neighbour
+		kDistanceSet.clear();
+		for(int i = 0; i < reverseCount[id]; i++) {
+			kDistanceSet.add(reverse[id][i]);
+		}
+
+		for(int pos = id * width; pos < id * width + neighborCount[id]; pos++) {
+			removeReverse(neighbors[pos], id);
+		}
+
+		unlink(id);
+		freeSlots[free++] = id;
+		neighborCount[id] = 0;
+		reverseCount[id] = 0;
+
+		for(int i = 0; i < kDistanceSet.size(); i++) {
+			int q = kDistanceSet.get(i);
+
+			for(int pos = q * width; pos < q * width + neighborCount[q]; pos++) {
+				if(neighbors[pos] != id) {
+					removeReverse(neighbors[pos], q);
+				}
+			}
+
+			queue.clear();
+			for(int j = oldest; j >= 0; j = next[j]) {
+				if(j != q) {
+					queue.offer(j, metric.distance(points, q, j));
+				}
+			}
+
+			setNeighbors(q, queue);
+		}
+
+		update();
+	}
+
+	/**
+	 * Recomputes k-distances, reach densities and LOF values starting from the points in
+	 * the k-distance set, whose neighbourhoods changed.
+	 */
+	private void update() {
+		reachDensitySet.clear();
+		for(int i = 0; i < kDistanceSet.size(); i++) {
+			int o = kDistanceSet.get(i);
+			int count = neighborCount[o];
+			kDistance[o] = count > 0 ? distances[o * width + count - 1] : 0.0;
+
+			// reach distances to o depend on the k-distance of o
+			reachDensitySet.add(o);
+			for(int r = 0; r < reverseCount[o]; r++) {
+				reachDensitySet.add(reverse[o][r]);
+			}
+		}
+
+		lofSet.clear();
+		for(int i = 0; i < reachDensitySet.size(); i++) {
+			int p = reachDensitySet.get(i);
+			reachDensity[p] = calReachDensity(p);
+
+			lofSet.add(p);
+			for(int r = 0; r < reverseCount[p]; r++) {
+				lofSet.add(reverse[p][r]);
+			}
+		}
+
+		for(int i = 0; i < lofSet.size(); i++) {
+			int p = lofSet.get(i);
+			lof[p] = calLof(p);
+		}
+	}
+
+	private double calReachDensity(int p) {
+		double sum = 0.0;
+
+		for(int pos = p * width; pos < p * width + neighborCount[p]; pos++) {
+			sum += Math.max(kDistance[neighbors[pos]], distances[pos]);
+		}
+
+		return (double) k / sum;
+	}
+
+	private double calLof(int p) {
+		double sum = 0.0;
+
+		for(int pos = p * width; pos < p * width + neighborCount[p]; pos++) {
+			sum += reachDensity[neighbors[pos]] / reachDensity[p];
+		}
+
+		return sum / (double) k;
+	}
+
+	/**
+	 * @return true if point id at distance d belongs to the nearest neighbours of point j
+	 */
+	private boolean accepts(int j, int id, double d) {
+		int count = neighborCount[j];
+
+		if(count < width) {
+			return true;
+		}
+
+		int last = j * width + count - 1;
+		return d < distances[last] || (d == distances[last] && id < neighbors[last]);
+	}
+
+	/**
+	 * Inserts the neighbour into the sorted neighbour list of point j.
+	 * @return id of the neighbour dropped from a full list, -1 if no neighbour was dropped
+	 */
+	private int addNeighbor(int j, int id, double d) {
+		int start = j * width;
+		int count = neighborCount[j];
+		int evicted = -1;
+		int pos;
+
+		if(count < width) {
+			pos = start + count;
+			neighborCount[j]++;
+		}
+		else {
+			pos = start + count - 1;
+			evicted = neighbors[pos];
+		}
+
+		while(pos > start && (distances[pos - 1] > d || (distances[pos - 1] == d && neighbors[pos - 1] > id))) {
+			neighbors[pos] = neighbors[pos - 1];
+			distances[pos] = distances[pos - 1];
+			pos--;
+		}
+
+		neighbors[pos] = id;
+		distances[pos] = d;
+
+		return evicted;
+	}
+
+	private void setNeighbors(int id, NeighborQueue queue) {
+		int start = id * width;
+		neighborCount[id] = queue.size();
+
+		for(int i = 0; i < queue.size(); i++) {
+			neighbors[start + i] = queue.getId(i);
+			distances[start + i] = queue.getDistance(i);
+			addReverse(queue.getId(i), id);
+		}
+	}
+
+	private void addReverse(int id, int q) {
+		if(reverseCount[id] == reverse[id].length) {
+			reverse[id] = Arrays.copyOf(reverse[id], 2 * reverse[id].length);
+		}
+
+		reverse[id][reverseCount[id]++] = q;
+	}
+
+	private void removeReverse(int id, int q) {
+		int[] list = reverse[id];
+
+		for(int i = 0; i < reverseCount[id]; i++) {
+			if(list[i] == q) {
+				list[i] = list[--reverseCount[id]];
+				return;
+			}
+		}
+	}
+
+	private void link(int id) {
+		active[id] = true;
+		prev[id] = newest;
+		next[id] = -1;
+
+		if(newest >= 0) { next[newest] = id; }
+		else            { oldest = id; }
+
+		newest = id;
+		size++;
+	}
+
+	private void unlink(int id) {
+		active[id] = false;
+
+		if(prev[id] >= 0) { next[prev[id]] = next[id]; }
+		else              { oldest = next[id]; }
+
+		if(next[id] >= 0) { prev[next[id]] = prev[id]; }
+		else              { newest = prev[id]; }
+
+		size--;
+	}
+
+	private void checkActive(int id) {
+		if(!contains(id)) {
+			throw new IllegalArgumentException("no point with id " + id + " in the window");
+		}
+	}
+
+	/**
+	 * Set of point ids with constant time insert and clear.
+	 */
+	private static class IdSet {
+
+		private final int[] ids;
+		private final int[] stamp;
+		private int epoch;
+		private int size;
+
+		IdSet(int capacity) {
+			ids = new int[capacity];
+			stamp = new int[capacity];
+		}
+
+		void clear() {
+			size = 0;
+			epoch++;
+		}
+
+		void add(int id) {
+			if(stamp[id] != epoch) {
+				stamp[id] = epoch;
+				ids[size++] = id;
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		int get(int i) {
+			return ids[i];
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.ece16.lof;
+
+import java.util.Arrays;
+
+/**
+ * KD-tree for exact k-nearest neighbour queries. 
+ * Inner nodes split their points at the median of the dimension with the largest spread.
+ * Works well for low dimensional data (up to about 10 dimensions), for higher dimensions 
+ * the pruning becomes ineffective and {@link VpTreeIndex} is the better choice. 
+ * Supports metrics where a single coordinate difference is a lower bound of the distance.
+ */
+public class KdTreeIndex implements KnnIndex {
+
+	public static final int DEFAULT_LEAF_SIZE = 16;
+
+	private final int leafSize;
+
+	private PointStore points;
+	private DistanceMetric metric;
+	private int[] order; // point ids, each node covers a contiguous range
+
+	// node data, leafs have no children (left = -1)
+	private int nodes;
+	private int[] start;
+	private int[] end;
+	private int[] left;
+	private int[] right;
+	private int[] splitDim;
+	private double[] splitValue;
+
+	public KdTreeIndex() {
+		this(DEFAULT_LEAF_SIZE);
+	}
+
+	public KdTreeIndex(int leafSize) {
+		this.leafSize = Math.max(1, leafSize);
+	}
+
+	public void build(PointStore points, DistanceMetric metric) {
+		if(!metric.isCoordinateBounded()) {
+			throw new IllegalArgumentException(metric.getClass().getSimpleName() + " is not supported by the KD-tree");
+		}
+
+		this.points = points;
+		this.metric = metric;
+		order = new int[points.size()];
+
+		for(int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		int capacity = 4 * points.size() / leafSize + 1;
+		nodes = 0;
+		start = new int[capacity];
+		end = new int[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		splitDim = new int[capacity];
+		splitValue = new double[capacity];
+
+		build(0, points.size(), new double[points.size()]);
+	}
+
+	private int build(int lo, int hi, double[] keys) {
+		int node = newNode(lo, hi);
+
+		if(hi - lo <= leafSize) {
+			return node;
+		}
+
+		int dim = widestDimension(lo, hi);
+		int mid = (lo + hi) >>> 1;
+
+		for(int i = lo; i < hi; i++) {
+			keys[i] = points.get(order[i], dim);
+		}
+
+		Quickselect.select(order, keys, lo, hi, mid);
+
+		splitDim[node] = dim;
+		splitValue[node] = keys[mid];
+
+		int l = build(lo, mid, keys);
+		int r = build(mid, hi, keys);
+		left[node] = l;
+		right[node] = r;
+
+		return node;
+	}
+
+	private int widestDimension(int lo, int hi) {
+		int dims = points.dimension();
+		int widest = 0;
+		double maxSpread = -1.0;
+
+		for(int d = 0; d < dims; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+
+			for(int i = lo; i < hi; i++) {
+				double v = points.get(order[i], d);
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+
+			if(max - min > maxSpread) {
+				maxSpread = max - min;
+				widest = d;
+			}
+		}
+
+		return widest;
+	}
+
+	private int newNode(int lo, int hi) {
+		if(nodes == start.length) {
+			int capacity = 2 * nodes;
+			start = Arrays.copyOf(start, capacity);
+			end = Arrays.copyOf(end, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			splitDim = Arrays.copyOf(splitDim, capacity);
+			splitValue = Arrays.copyOf(splitValue, capacity);
+		}
+
+		start[nodes] = lo;
+		end[nodes] = hi;
+		left[nodes] = -1;
+		right[nodes] = -1;
+
+		return nodes++;
+	}
+
+	public void query(int id, NeighborQueue queue) {
+		search(0, id, queue);
+	}
+
+	private void search(int node, int id, NeighborQueue queue) {
+		if(left[node] < 0) {
+			for(int i = start[node]; i < end[node]; i++) {
+				int j = order[i];
+				if(j != id) {
+					queue.offer(j, metric.rankDistance(points, id, j));
+				}
+			}
+
+			return;
+		}
+
+		double diff = points.get(id, splitDim[node]) - splitValue[node];
+		int near = diff < 0 ? left[node] : right[node];
+		int far = diff < 0 ? right[node] : left[node];
+
+		search(near, id, queue);
+
+		// points in the far subtree are at least |diff| away from the query point
+		if(metric.toRank(Math.abs(diff)) <= queue.bound()) {
+			search(far, id, queue);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.ece16.lof;
+
+/**
+ * Index for k-nearest neighbour queries over a fixed set of points.
+ * Points are identified by their id in the store passed to {@link #build(PointStore, DistanceMetric)}.
+ * After building, queries only read the index and may run concurrently as long as 
+ * every thread uses its own {@link NeighborQueue}.
+ */
+public interface KnnIndex {
+
+	/**
+	 * Builds the index for the provided points and distance metric.
+	 * @throws IllegalArgumentException if the index does not support the metric
+	 */
+	void build(PointStore points, DistanceMetric metric);
+
+	/**
+	 * Collects the nearest neighbours of the specified point (excluding the point itself) 
+	 * into the provided queue. The number of neighbours is given by the capacity of the queue.
+	 * The queue receives rank distances of the metric (see {@link DistanceMetric#rankDistance(PointStore, int, int)}).
+	 */
+	void query(int id, NeighborQueue queue);
+}
@@ -0,0 +1,24 @@
+package org.ece16.lof;
+
+/**
+ * Brute force k-nearest neighbour search that compares the query point with all other points.
+ * Requires O(n) distance computations per query and no preprocessing.
+ */
+public class LinearScanIndex implements KnnIndex {
+
+	private PointStore points;
+	private DistanceMetric metric;
+
+	public void build(PointStore points, DistanceMetric metric) {
+		this.points = points;
+		this.metric = metric;
+	}
+
+	public void query(int id, NeighborQueue queue) {
+		for (int j = 0; j < points.size(); j++) {  
+			if (j != id) {
+				queue.offer(j, metric.rankDistance(points, id, j));
+			}
+		}  
+	}
+}
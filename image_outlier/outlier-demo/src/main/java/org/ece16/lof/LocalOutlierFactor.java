@@ -1,10 +1,13 @@
 package org.ece16.lof;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;  
 
+import org.surus.math.BlockExecutor;
+
 /** 
  * original source: https://github.com/wilsonact/LOF-java/blob/master/DataNode.java
  *
@@ -14,12 +17,69 @@ import java.util.List;
  */  
 public class LocalOutlierFactor {  
 
+	/** neighbour searches of different points vary in cost, smaller chunks balance them */
+	private static final int CHUNKS_PER_THREAD = 16;
+
 	private int INT_K = 4;
+	private KnnIndex index = new LinearScanIndex();
+	private DistanceMetric metric = DistanceMetric.EUCLIDEAN;
+	private BlockExecutor executor = BlockExecutor.SEQUENTIAL;
+	private boolean paperNeighborhoods = false;
 
 	public void setK(int int_k) {  
 		this.INT_K = int_k;  
 	}
 
+	/**
+	 * Sets the index used for the k-nearest neighbour search (default: {@link LinearScanIndex}).
+	 * Use {@link KdTreeIndex} for low dimensional and {@link VpTreeIndex} for higher dimensional data.
+	 */
+	public void setIndex(KnnIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Sets the distance metric (default: {@link DistanceMetric#EUCLIDEAN}).
+	 * The metric has to be supported by the index, see {@link DistanceMetric#isMetric()} and 
+	 * {@link DistanceMetric#isCoordinateBounded()}.
+	 */
+	public void setMetric(DistanceMetric metric) {
+		this.metric = metric;
+	}
+
+	/**
+	 * Selects the neighbourhood definition (default: false).
+	 * By default the neighbourhood of a point holds its k-1 nearest other points and densities are 
+	 * normalised by k, as in the original implementation. With paper neighbourhoods the k-distance 
+	 * neighbourhood of the LOF paper is used: all points within the distance of the k-th nearest 
+	 * other point, which may be more than k points if there are ties, and densities are normalised 
+	 * by the size of the neighbourhood.
+	 */
+	public void setPaperNeighborhoods(boolean paperNeighborhoods) {
+		this.paperNeighborhoods = paperNeighborhoods;
+	}
+
+	/**
+	 * Sets the number of threads used for the neighbour search and the LOF stages (default: 1).
+	 * Every stage computes the values of each point independently, so the results do not 
+	 * depend on the parallelism. Call {@link #shutdown()} to stop the threads when done.
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism != executor.getParallelism()) {
+			executor.shutdown();
+			executor = new BlockExecutor(parallelism, CHUNKS_PER_THREAD);
+		}
+	}
+
+	/**
+	 * Stops the worker threads started by {@link #setParallelism(int)}.
+	 * Later computations run sequentially until the parallelism is set again.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		executor = BlockExecutor.SEQUENTIAL;
+	}
+
 	/** 
 	 * Comparator for sorting DataNode using the distance in ascending order.
 	 */  
@@ -50,132 +110,299 @@ public class LocalOutlierFactor {
 	 * Computes LOF values for all nodes and returns a sorted set of the nodes.
 	 */
 	public List<DataNode> getOutlierNodes(List<DataNode> allNodes) {  
+		return getOutlierNodes(allNodes, new int[] { INT_K }).get(0);
+	}  
 
-		List<DataNode> kdAndKnList = getKDAndKN(allNodes);  
-		calReachDis(kdAndKnList);  
-		calReachDensity(kdAndKnList);  
-		calLof(kdAndKnList);  
-		Collections.sort(kdAndKnList, new LofComparator());  
+	/**
+	 * Computes LOF values for all nodes and each of the provided k values.
+	 * The neighbour search only runs once for the largest k.
+	 * @return sorted set of the nodes for each k, in the order of the provided k values
+	 */
+	public List<List<DataNode>> getOutlierNodes(List<DataNode> allNodes, int[] ks) {  
+		List<List<DataNode>> nodeLists = new ArrayList<List<DataNode>>();
+
+		for (LofResult result: getOutlierScores(toPoints(allNodes), ks)) {
+			List<DataNode> kdAndKnList = toDataNodes(allNodes, result);
+			Collections.sort(kdAndKnList, new LofComparator());  
+			nodeLists.add(kdAndKnList);
+		}
 
-		return kdAndKnList;  
+		return nodeLists;  
 	}  
 
+	/**
+	 * Computes LOF values for the provided points. 
+	 * Points are identified by their row index, the returned arrays use the same ids.
+	 */
+	public LofResult getOutlierScores(double[][] points) {
+		return getOutlierScores(PointStore.of(points));
+	}
+
+	/**
+	 * Computes LOF values for the points of the provided store. 
+	 * The returned arrays are indexed by the point ids of the store.
+	 */
+	public LofResult getOutlierScores(PointStore points) {
+		return getOutlierScores(points, new int[] { INT_K })[0];
+	}
+
+	/**
+	 * Computes LOF values of the provided points for each of the provided k values.
+	 * @return results in the order of the provided k values
+	 */
+	public LofResult[] getOutlierScores(double[][] points, int[] ks) {
+		return getOutlierScores(PointStore.of(points), ks);
+	}
+
+	/**
+	 * Computes LOF values of the provided points for each of the provided k values.
+	 * The neighbourhoods are computed once for the largest k, the neighbourhoods for 
+	 * smaller k values are prefixes of these.
+	 * @return results in the order of the provided k values
+	 */
+	public LofResult[] getOutlierScores(PointStore points, int[] ks) {
+		if(ks.length == 0) {
+			throw new IllegalArgumentException("no k values provided");
+		}
+
+		int kMax = ks[0];
+		for (int k: ks) {
+			kMax = Math.max(kMax, k);
+		}
+
+		Neighborhoods all = getKDAndKN(points, kMax);
+		LofResult[] results = new LofResult[ks.length];
+
+		for (int i = 0; i < ks.length; i++) {
+			Neighborhoods neighborhoods = all.truncate(getWidth(ks[i], points.size()), paperNeighborhoods);
+			double[] reachDis = calReachDis(neighborhoods);
+			double[] reachDensity = calReachDensity(neighborhoods, reachDis, ks[i]);
+			double[] lof = calLof(neighborhoods, reachDensity, ks[i]);
+
+			results[i] = new LofResult(ks[i], neighborhoods, reachDis, reachDensity, lof);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Computes the maximum LOF value of each point over the range kMin..kMax (both inclusive). 
+	 * This is the ranking heuristic proposed in the LOF paper for when no single k is known to work.
+	 */
+	public double[] getMaxOutlierScores(double[][] points, int kMin, int kMax) {
+		return getMaxOutlierScores(PointStore.of(points), kMin, kMax);
+	}
+
+	/**
+	 * Computes the maximum LOF value of each point over the range kMin..kMax (both inclusive). 
+	 */
+	public double[] getMaxOutlierScores(PointStore points, int kMin, int kMax) {
+		if(kMin > kMax) {
+			throw new IllegalArgumentException("kMin=" + kMin + " is larger than kMax=" + kMax);
+		}
+
+		int[] ks = new int[kMax - kMin + 1];
+		for (int i = 0; i < ks.length; i++) {
+			ks[i] = kMin + i;
+		}
+
+		double[] maxLof = new double[points.size()];
+		Arrays.fill(maxLof, Double.NEGATIVE_INFINITY);
+
+		for (LofResult result: getOutlierScores(points, ks)) {
+			for (int id = 0; id < maxLof.length; id++) {
+				maxLof[id] = Math.max(maxLof[id], result.getLof(id));
+			}
+		}
+
+		return maxLof;
+	}
+
 	/** 
-	 * @param kdAndKnList 
+	 * lof(p) = sum{ rd(o) / rd(p) } / norm(p) over all neighbours o of p 
 	 */  
-	private void calLof(List<DataNode> kdAndKnList) {  
-		for (DataNode node : kdAndKnList) {  
-			List<DataNode> tempNodes = node.getkNeighbor();  
-			double sum = 0.0;  
-			for (DataNode tempNode : tempNodes) {  
-				double rd = getRD(tempNode.getNodeName(), kdAndKnList);  
-				sum = rd / node.getReachDensity() + sum;  
-			}  
-			sum = sum / (double) INT_K;  
-			node.setLof(sum);
-		}  
+	private double[] calLof(final Neighborhoods neighborhoods, final double[] reachDensity, final int k) {  
+		final double[] lof = new double[neighborhoods.size()];
+
+		executor.forEach(lof.length, new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				for (int id = lo; id < hi; id++) {  
+					double sum = 0.0;  
+					for (int pos = neighborhoods.start(id); pos < neighborhoods.end(id); pos++) {  
+						sum += reachDensity[neighborhoods.getNeighbor(pos)] / reachDensity[id];  
+					}  
+					lof[id] = sum / getNorm(neighborhoods, id, k);
+				}  
+			}
+		});
+
+		return lof;
 	}  
 
 	/** 
-	 * @param kdAndKnList 
+	 * rd(p) = norm(p) / sum{ reachdis(p,o) } over all neighbours o of p 
 	 */  
-	private void calReachDensity(List<DataNode> kdAndKnList) {  
-		for (DataNode node : kdAndKnList) {  
-			List<DataNode> tempNodes = node.getkNeighbor();  
-			double sum = 0.0;  
-			double rd = 0.0;  
-			for (DataNode tempNode : tempNodes) {  
-				sum = tempNode.getReachDis() + sum;  
+	private double[] calReachDensity(final Neighborhoods neighborhoods, final double[] reachDis, final int k) {  
+		final double[] reachDensity = new double[neighborhoods.size()];
+
+		executor.forEach(reachDensity.length, new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				for (int id = lo; id < hi; id++) {  
+					double sum = 0.0;  
+					for (int pos = neighborhoods.start(id); pos < neighborhoods.end(id); pos++) {  
+						sum += reachDis[pos];  
+					}
+					reachDensity[id] = getNorm(neighborhoods, id, k) / sum;
+				}
 			}
-			rd = (double) INT_K / sum;
-			node.setReachDensity(rd); 
-		}
+		});
+
+		return reachDensity;
 	}
 
 	/** 
 	 * reachdis(p,o)=max{ k-distance(o), d(p,o)} 
-	 * @param kdAndKnList 
+	 * @return reach distances indexed by neighbour position
 	 */  
-	private void calReachDis(List<DataNode> kdAndKnList) {  
-		for (DataNode node : kdAndKnList) {  
-			List<DataNode> tempNodes = node.getkNeighbor();  
-			for (DataNode tempNode : tempNodes) {  
-				double kDis = getKDis(tempNode.getNodeName(), kdAndKnList);  
-				//reachdis(p,o)=max{ k-distance(o),d(p,o)}  
-				if (kDis < tempNode.getDistance()) {  
-					tempNode.setReachDis(tempNode.getDistance());  
-				} else {  
-					tempNode.setReachDis(kDis);  
+	private double[] calReachDis(final Neighborhoods neighborhoods) {  
+		final double[] reachDis = new double[neighborhoods.entries()];
+
+		executor.forEach(neighborhoods.size(), new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				for (int id = lo; id < hi; id++) {  
+					for (int pos = neighborhoods.start(id); pos < neighborhoods.end(id); pos++) {  
+						double kDis = neighborhoods.getkDistance(neighborhoods.getNeighbor(pos));  
+						reachDis[pos] = Math.max(kDis, neighborhoods.getDistance(pos));  
+					}  
 				}  
-			}  
-		}  
+			}
+		});
+
+		return reachDis;
 	}  
 
 	/** 
-	 * Returns the kDistance of the specified node. 
-	 * @param nodeName 
-	 * @param nodeList 
-	 * @return 
+	 * Finds the nearest neighbours (excluding the point itself) and the k-distance of every point.
+	 * @param points 
+	 * @return neighbourhoods indexed by point id 
 	 */  
-	private double getKDis(String nodeName, List<DataNode> nodeList) {  
-		double kDis = 0;  
-		for (DataNode node : nodeList) {  
-			if (nodeName.trim().equals(node.getNodeName().trim())) {  
-				kDis = node.getkDistance();  
-				break;  
-			}  
-		}  
-		return kDis;  
+	private Neighborhoods getKDAndKN(PointStore points, int k) {  
+		final int width = getWidth(k, points.size());
+		final KnnIndex index = this.index;
+		final DistanceMetric metric = this.metric;
 
-	}  
+		index.build(points, metric);
 
-	/** 
-	 * Returns reach density of specified node.
-	 * @param nodeName 
-	 * @param nodeList 
-	 * @return 
-	 */  
-	private double getRD(String nodeName, List<DataNode> nodeList) {  
-		double kDis = 0;  
-		for (DataNode node : nodeList) {  
-			if (nodeName.trim().equals(node.getNodeName().trim())) {  
-				kDis = node.getReachDensity();  
-				break;  
-			}  
-		}  
-		return kDis;  
+		if (paperNeighborhoods) {
+			return getKDAndKNWithTies(points.size(), width, index, metric);
+		}
+
+		final Neighborhoods neighborhoods = new Neighborhoods(points.size(), width);
 
+		executor.forEach(points.size(), new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				NeighborQueue queue = new NeighborQueue(width);
+
+				for (int i = lo; i < hi; i++) {  
+					queue.clear();
+					index.query(i, queue);
+
+					int pos = neighborhoods.start(i);
+					for (int k = 0; k < width; k++) {  
+						neighborhoods.set(pos + k, queue.getId(k), metric.toDistance(queue.getDistance(k)));
+					}
+
+					neighborhoods.setkDistance(i, neighborhoods.getDistance(pos + width - 1));
+				}  
+			}
+		});
+
+		return neighborhoods;  
 	}  
 
 	/** 
-	 * @param allNodes 
-	 * @return List<Node> 
+	 * Neighbourhoods that may hold more than width points, their size is only known after the query.
 	 */  
-	private List<DataNode> getKDAndKN(List<DataNode> allNodes) {  
-		List<DataNode> kdAndKnList = new ArrayList<DataNode>();  
-		for (int i = 0; i < allNodes.size(); i++) {  
-			List<DataNode> tempNodeList = new ArrayList<DataNode>();  
-			DataNode nodeA = new DataNode(allNodes.get(i));  
-
-			for (int j = 0; j < allNodes.size(); j++) {  
-				DataNode nodeB = new DataNode(allNodes.get(j));  
-				double tempDis = nodeA.distance(nodeB);
-				nodeB.setDistance(tempDis);  
-				tempNodeList.add(nodeB);  
-			}  
-
-			Collections.sort(tempNodeList, new DistComparator());  
-			for (int k = 1; k < INT_K; k++) {  
-				nodeA.getkNeighbor().add(tempNodeList.get(k));  
-				if (k == INT_K - 1) {  
-					nodeA.setkDistance(tempNodeList.get(k).getDistance());  
+	private Neighborhoods getKDAndKNWithTies(int size, final int width, final KnnIndex index, final DistanceMetric metric) {  
+		final int[][] neighbors = new int[size][];
+		final double[][] distances = new double[size][];
+
+		executor.forEach(size, new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				NeighborQueue queue = new NeighborQueue(width, true);
+
+				for (int i = lo; i < hi; i++) {  
+					queue.clear();
+					index.query(i, queue);
+
+					neighbors[i] = new int[queue.size()];
+					distances[i] = new double[queue.size()];
+
+					for (int k = 0; k < queue.size(); k++) {  
+						neighbors[i][k] = queue.getId(k);
+						distances[i][k] = metric.toDistance(queue.getDistance(k));
+					}
 				}  
 			}
-			
-			kdAndKnList.add(nodeA);  
-		}  
+		});
 
-		return kdAndKnList;  
+		return Neighborhoods.fromRows(neighbors, distances);  
 	}  
-}
 
+	/**
+	 * @return number of nearest neighbours for the specified k
+	 */
+	private int getWidth(int k, int size) {
+		int width = paperNeighborhoods ? k : k - 1;
+
+		if(width < 1 || width >= size) {
+			throw new IllegalArgumentException("k=" + k + " is not valid for " + size + " data points");
+		}
+
+		return width;
+	}
+
+	/**
+	 * @return normalisation of the density and LOF sums for the specified point
+	 */
+	private double getNorm(Neighborhoods neighborhoods, int id, int k) {
+		return paperNeighborhoods ? (double) (neighborhoods.end(id) - neighborhoods.start(id)) : (double) k;
+	}
+
+	private static PointStore toPoints(List<DataNode> nodes) {
+		int dimension = nodes.isEmpty() ? 0 : nodes.get(0).getDimensioin().length;
+		PointStore points = new PointStore(nodes.size(), dimension, false);
+
+		for (int i = 0; i < nodes.size(); i++) {
+			points.setPoint(i, nodes.get(i).getDimensioin());
+		}
+
+		return points;
+	}
+
+	/**
+	 * Creates result nodes (copies of the input nodes) that hold the computed LOF values.
+	 */
+	private static List<DataNode> toDataNodes(List<DataNode> allNodes, LofResult result) {
+		Neighborhoods neighborhoods = result.getNeighborhoods();
+		List<DataNode> nodes = new ArrayList<DataNode>(allNodes.size());
+
+		for (int id = 0; id < allNodes.size(); id++) {
+			DataNode node = new DataNode(allNodes.get(id));
+			node.setkDistance(result.getkDistance(id));
+			node.setReachDensity(result.getReachDensity(id));
+			node.setLof(result.getLof(id));
+
+			for (int pos = neighborhoods.start(id); pos < neighborhoods.end(id); pos++) {
+				DataNode neighbor = new DataNode(allNodes.get(neighborhoods.getNeighbor(pos)));
+				neighbor.setDistance(neighborhoods.getDistance(pos));
+				neighbor.setReachDis(result.getReachDis(pos));
+				node.getkNeighbor().add(neighbor);
+			}
+
+			nodes.add(node);
+		}
+
+		return nodes;
+	}
+}
@@ -0,0 +1,175 @@
+package org.ece16.lof;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Error of an approximate LOF result (e.g. computed with {@link RpForestIndex})
+ * relative to the exact result for the same points and k.
+ *
+ * Points are ranked by decreasing LOF, rank 0 is the strongest outlier.
+ */
+public class LofComparison {
+
+	private final int topN;
+	private final double neighborRecall;
+	private final double topRecall;
+	private final double meanRankShift;
+	private final int maxRankShift;
+	private final double spearman;
+	private final double maxLofError;
+
+	private LofComparison(int topN, double neighborRecall, double topRecall, double meanRankShift,
+			int maxRankShift, double spearman, double maxLofError) {
+		this.topN = topN;
+		this.neighborRecall = neighborRecall;
+		this.topRecall = topRecall;
+		this.meanRankShift = meanRankShift;
+		this.maxRankShift = maxRankShift;
+		this.spearman = spearman;
+		this.maxLofError = maxLofError;
+	}
+
+	/**
+	 * @param exact result of an exact index
+	 * @param approximate result of an approximate index for the same points and k
+	 * @param topN number of strongest outliers to compare
+	 */
+	public static LofComparison compare(LofResult exact, LofResult approximate, int topN) {
+		int n = exact.size();
+
+		if(approximate.size() != n) {
+			throw new IllegalArgumentException("results have different sizes: " + n + " and " + approximate.size());
+		}
+
+		topN = Math.min(topN, n);
+
+		int[] exactRank = ranks(exact.getLof());
+		int[] approximateRank = ranks(approximate.getLof());
+
+		int found = 0;
+		long rankShift = 0;
+		int maxRankShift = 0;
+		double squaredRankDiff = 0.0;
+		double maxLofError = 0.0;
+
+		for(int id = 0; id < n; id++) {
+			int diff = Math.abs(exactRank[id] - approximateRank[id]);
+			squaredRankDiff += (double) diff * diff;
+			maxLofError = Math.max(maxLofError, Math.abs(exact.getLof(id) - approximate.getLof(id)));
+
+			if(exactRank[id] < topN) {
+				rankShift += diff;
+				maxRankShift = Math.max(maxRankShift, diff);
+
+				if(approximateRank[id] < topN) {
+					found++;
+				}
+			}
+		}
+
+		double spearman = n > 1 ? 1.0 - 6.0 * squaredRankDiff / ((double) n * ((double) n * n - 1)) : 1.0;
+
+		return new LofComparison(topN, neighborRecall(exact.getNeighborhoods(), approximate.getNeighborhoods()),
+				topN > 0 ? (double) found / topN : 1.0, topN > 0 ? (double) rankShift / topN : 0.0,
+				maxRankShift, spearman, maxLofError);
+	}
+
+	/**
+	 * @return rank of every point by decreasing LOF, ties ordered by id
+	 */
+	private static int[] ranks(final double[] lof) {
+		Integer[] ids = new Integer[lof.length];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = i;
+		}
+
+		Arrays.sort(ids, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int c = Double.compare(lof[b], lof[a]);
+				return c != 0 ? c : a.compareTo(b);
+			}
+		});
+
+		int[] ranks = new int[lof.length];
+		for(int r = 0; r < ids.length; r++) {
+			ranks[ids[r]] = r;
+		}
+
+		return ranks;
+	}
+
+	/**
+	 * @return fraction of the exact neighbours that are also approximate neighbours
+	 */
+	private static double neighborRecall(Neighborhoods exact, Neighborhoods approximate) {
+		long found = 0;
+
+		for(int id = 0; id < exact.size(); id++) {
+			for(int pos = exact.start(id); pos < exact.end(id); pos++) {
+				int neighbor = exact.getNeighbor(pos);
+
+				for(int a = approximate.start(id); a < approximate.end(id); a++) {
+					if(approximate.getNeighbor(a) == neighbor) {
+						found++;
+						break;
+					}
+				}
+			}
+		}
+
+		return exact.entries() > 0 ? (double) found / exact.entries() : 1.0;
+	}
+
+	public int getTopN() {
+		return topN;
+	}
+
+	/**
+	 * @return fraction of the exact k-nearest neighbours found by the approximate index
+	 */
+	public double getNeighborRecall() {
+		return neighborRecall;
+	}
+
+	/**
+	 * @return fraction of the exact top N outliers that are also in the approximate top N
+	 */
+	public double getTopRecall() {
+		return topRecall;
+	}
+
+	/**
+	 * @return mean absolute rank difference of the exact top N outliers
+	 */
+	public double getMeanRankShift() {
+		return meanRankShift;
+	}
+
+	/**
+	 * @return maximum absolute rank difference of the exact top N outliers
+	 */
+	public int getMaxRankShift() {
+		return maxRankShift;
+	}
+
+	/**
+	 * @return Spearman rank correlation of the LOF values of all points
+	 */
+	public double getSpearman() {
+		return spearman;
+	}
+
+	/**
+	 * @return maximum absolute difference of the LOF values
+	 */
+	public double getMaxLofError() {
+		return maxLofError;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("neighbour recall %.4f, top %d recall %.4f, mean rank shift %.2f, max rank shift %d, spearman %.4f, max LOF error %.4g",
+				neighborRecall, topN, topRecall, meanRankShift, maxRankShift, spearman, maxLofError);
+	}
+}
@@ -0,0 +1,61 @@
+package org.ece16.lof;
+
+/**
+ * LOF values computed by {@link LocalOutlierFactor} for a set of points.
+ * All arrays are indexed by point id, the reach distances by neighbour position
+ * (see {@link Neighborhoods}).
+ */
+public class LofResult {
+
+	private final int k;
+	private final Neighborhoods neighborhoods;
+	private final double[] reachDis;
+	private final double[] reachDensity;
+	private final double[] lof;
+
+	public LofResult(int k, Neighborhoods neighborhoods, double[] reachDis, double[] reachDensity, double[] lof) {
+		this.k = k;
+		this.neighborhoods = neighborhoods;
+		this.reachDis = reachDis;
+		this.reachDensity = reachDensity;
+		this.lof = lof;
+	}
+
+	/**
+	 * @return the k value used to compute the result
+	 */
+	public int getK() {
+		return k;
+	}
+
+	public int size() {
+		return lof.length;
+	}
+
+	public Neighborhoods getNeighborhoods() {
+		return neighborhoods;
+	}
+
+	public double getkDistance(int id) {
+		return neighborhoods.getkDistance(id);
+	}
+
+	public double getReachDis(int pos) {
+		return reachDis[pos];
+	}
+
+	public double getReachDensity(int id) {
+		return reachDensity[id];
+	}
+
+	public double getLof(int id) {
+		return lof[id];
+	}
+
+	/**
+	 * @return LOF values indexed by point id
+	 */
+	public double[] getLof() {
+		return lof;
+	}
+}
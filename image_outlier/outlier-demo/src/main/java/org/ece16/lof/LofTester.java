@@ -24,6 +24,7 @@ public class LofTester {
 		}
 
 		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setParallelism(Runtime.getRuntime().availableProcessors());
 		BreastCancerWisconsinDataLoader loader = new BreastCancerWisconsinDataLoader(dataFile);		
 		List<DataNode> dataNodes = loader.getDataNodes();
 		List<DataNode> nodesSorted = null;
@@ -35,13 +36,14 @@ public class LofTester {
 		}
 		else {
 			int[] kArray = {10,20,30,40,50};
-			for (int k_i: kArray){
-				lof.setK(k_i);
-				nodesSorted = lof.getOutlierNodes(dataNodes); 				 
-				printEval(k_i, nodesSorted, threshold, true);
+			List<List<DataNode>> nodesSortedPerK = lof.getOutlierNodes(dataNodes, kArray);
+			for (int i = 0; i < kArray.length; i++){
+				printEval(kArray[i], nodesSortedPerK.get(i), threshold, true);
 			}
 		}
 
+		lof.shutdown();
+
 		System.exit(0);
 	}
 
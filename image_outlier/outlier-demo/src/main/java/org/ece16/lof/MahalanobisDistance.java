@@ -0,0 +1,98 @@
+package org.ece16.lof;
+
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.stat.correlation.Covariance;
+
+/**
+ * Mahalanobis distance sqrt((x-y)' C^-1 (x-y)) for a covariance matrix C.
+ *
+ * The inverse covariance is factored once into U'U with an upper triangular U, 
+ * the squared distance is then the squared norm of U(x-y). This needs about half 
+ * the multiplications of the plain quadratic form and no temporary arrays, so a 
+ * single instance can be used by concurrent queries.
+ */
+public class MahalanobisDistance extends DistanceMetric {
+
+	private final int dimension;
+	private final double[] factor; // U in row-major order
+
+	public MahalanobisDistance(double[][] covariance) {
+		this(MatrixUtils.createRealMatrix(covariance));
+	}
+
+	public MahalanobisDistance(RealMatrix covariance) {
+		RealMatrix inverse = new LUDecomposition(covariance).getSolver().getInverse();
+		RealMatrix upper = new CholeskyDecomposition(inverse).getLT();
+
+		dimension = covariance.getRowDimension();
+		factor = new double[dimension * dimension];
+
+		for(int row = 0; row < dimension; row++) {
+			for(int col = row; col < dimension; col++) {
+				factor[row * dimension + col] = upper.getEntry(row, col);
+			}
+		}
+	}
+
+	/**
+	 * @return Mahalanobis distance for the sample covariance of the provided points
+	 */
+	public static MahalanobisDistance fromData(PointStore points) {
+		double[][] data = new double[points.size()][];
+
+		for(int i = 0; i < data.length; i++) {
+			data[i] = points.getPoint(i);
+		}
+
+		return new MahalanobisDistance(new Covariance(data).getCovarianceMatrix());
+	}
+
+	@Override
+	public double distance(PointStore points, int i, int j) {
+		return Math.sqrt(rankDistance(points, i, j));
+	}
+
+	@Override
+	public double rankDistance(PointStore points, int i, int j) {
+		if(points.dimension() != dimension) {
+			throw new IllegalArgumentException("point dimension " + points.dimension() + " does not match covariance dimension " + dimension);
+		}
+
+		double sum = 0.0;
+
+		for(int row = 0; row < dimension; row++) {
+			double s = 0.0;
+
+			for(int col = row; col < dimension; col++) {
+				s += factor[row * dimension + col] * (points.get(i, col) - points.get(j, col));
+			}
+
+			sum += s * s;
+		}
+
+		return sum;
+	}
+
+	@Override
+	public double toDistance(double rank) {
+		return Math.sqrt(rank);
+	}
+
+	@Override
+	public double toRank(double distance) {
+		return distance * distance;
+	}
+
+	@Override
+	public boolean isMetric() {
+		return true;
+	}
+
+	@Override
+	public boolean isCoordinateBounded() {
+		return false;
+	}
+}
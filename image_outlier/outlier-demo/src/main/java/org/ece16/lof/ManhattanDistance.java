@@ -0,0 +1,22 @@
+package org.ece16.lof;
+
+/**
+ * Manhattan (L1) distance.
+ */
+public class ManhattanDistance extends DistanceMetric {
+
+	@Override
+	public double distance(PointStore points, int i, int j) {
+		return DistanceKernels.manhattan(points, i, j);
+	}
+
+	@Override
+	public boolean isMetric() {
+		return true;
+	}
+
+	@Override
+	public boolean isCoordinateBounded() {
+		return true;
+	}
+}
@@ -0,0 +1,211 @@
+package org.ece16.lof;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the nearest neighbours seen so far during a k-nearest neighbour query.
+ *
+ * Candidates are kept in a bounded max-heap on primitive arrays, so a query over
+ * n candidates takes O(n log k) instead of sorting all n candidates. Candidates with
+ * equal distance are ordered by id, which makes the result independent of the order
+ * in which an index offers its candidates.
+ *
+ * When ties are kept, all candidates at the same distance as the farthest neighbour
+ * are retained as well. This is the k-distance neighbourhood of the LOF paper, which
+ * may hold more than k points.
+ */
+public class NeighborQueue {
+
+	private final int capacity;
+	private final boolean keepTies;
+
+	private int[] ids;
+	private double[] distances;
+	private int size;
+	private int ties;
+	private boolean sorted;
+
+	public NeighborQueue(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * @param capacity number of nearest neighbours to keep
+	 * @param keepTies also keep all candidates at the distance of the farthest neighbour
+	 */
+	public NeighborQueue(int capacity, boolean keepTies) {
+		this.capacity = capacity;
+		this.keepTies = keepTies;
+		ids = new int[capacity];
+		distances = new double[capacity];
+	}
+
+	public void clear() {
+		size = 0;
+		ties = 0;
+		sorted = false;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of collected neighbours including ties
+	 */
+	public int size() {
+		return size + ties;
+	}
+
+	/**
+	 * @return distance a candidate has to reach to be accepted, infinity while the queue is not full
+	 */
+	public double bound() {
+		return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+	}
+
+	/**
+	 * Adds the candidate if it is not farther away than the current bound.
+	 * Must not be called after the collected neighbours have been read.
+	 */
+	public void offer(int id, double distance) {
+		if(size < capacity) {
+			ids[size] = id;
+			distances[size] = distance;
+			siftUp(size++);
+			return;
+		}
+
+		if(capacity == 0 || distance > distances[0]) {
+			return;
+		}
+
+		if(distance == distances[0] && (keepTies || id > ids[0])) {
+			if(keepTies) {
+				addTie(id, distance);
+			}
+			return;
+		}
+
+		int evictedId = ids[0];
+		double evicted = distances[0];
+
+		ids[0] = id;
+		distances[0] = distance;
+		siftDown(0);
+
+		if(keepTies) {
+			if(distances[0] == evicted) { addTie(evictedId, evicted); }
+			else                        { ties = 0; }
+		}
+	}
+
+	/**
+	 * @return id of the i-th nearest neighbour
+	 */
+	public int getId(int i) {
+		sort();
+		return ids[i];
+	}
+
+	/**
+	 * @return distance of the i-th nearest neighbour
+	 */
+	public double getDistance(int i) {
+		sort();
+		return distances[i];
+	}
+
+	private void addTie(int id, double distance) {
+		int pos = capacity + ties++;
+
+		if(pos == ids.length) {
+			ids = Arrays.copyOf(ids, 2 * pos);
+			distances = Arrays.copyOf(distances, 2 * pos);
+		}
+
+		ids[pos] = id;
+		distances[pos] = distance;
+	}
+
+	/**
+	 * Turns the heap into a list in increasing order of distance (heap sort),
+	 * followed by the ties ordered by id.
+	 */
+	private void sort() {
+		if(sorted) {
+			return;
+		}
+
+		for(int end = size - 1; end > 0; end--) {
+			swap(0, end);
+			siftDown(0, end);
+		}
+
+		// ties all share the largest distance, order them with the heap entries of that distance
+		int from = size + ties;
+		while(from > 0 && distances[from - 1] == distances[size + ties - 1]) {
+			from--;
+		}
+
+		for(int i = from + 1; i < size + ties; i++) {
+			for(int j = i; j > from && ids[j - 1] > ids[j]; j--) {
+				swap(j - 1, j);
+			}
+		}
+
+		sorted = true;
+	}
+
+	private boolean greater(int i, int j) {
+		return distances[i] > distances[j] || (distances[i] == distances[j] && ids[i] > ids[j]);
+	}
+
+	private void siftUp(int pos) {
+		while(pos > 0) {
+			int parent = (pos - 1) >>> 1;
+
+			if(!greater(pos, parent)) {
+				return;
+			}
+
+			swap(pos, parent);
+			pos = parent;
+		}
+	}
+
+	private void siftDown(int pos) {
+		siftDown(pos, size);
+	}
+
+	private void siftDown(int pos, int end) {
+		while(true) {
+			int child = 2 * pos + 1;
+
+			if(child >= end) {
+				return;
+			}
+
+			if(child + 1 < end && greater(child + 1, child)) {
+				child++;
+			}
+
+			if(!greater(child, pos)) {
+				return;
+			}
+
+			swap(pos, child);
+			pos = child;
+		}
+	}
+
+	private void swap(int i, int j) {
+		int id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+
+		double distance = distances[i];
+		distances[i] = distances[j];
+		distances[j] = distance;
+	}
+}
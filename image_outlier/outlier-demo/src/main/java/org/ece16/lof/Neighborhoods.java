@@ -0,0 +1,159 @@
+package org.ece16.lof;
+
+/**
+ * k-nearest neighbourhoods of a set of points addressed by integer ids 0..n-1.
+ *
+ * The neighbours of point i are stored in positions start(i) .. end(i)-1 of the
+ * neighbour and distance arrays in increasing order of distance. Keeping everything
+ * in primitive arrays allows the LOF stages to resolve neighbours by id instead
+ * of searching node lists by name.
+ */
+public class Neighborhoods {
+
+	private final int[] offsets;
+	private final int[] neighbors;
+	private final double[] distances;
+	private final double[] kDistance;
+
+	/**
+	 * Creates empty neighbourhoods holding exactly width neighbours per point.
+	 */
+	public Neighborhoods(int size, int width) {
+		offsets = new int[size + 1];
+		neighbors = new int[size * width];
+		distances = new double[size * width];
+		kDistance = new double[size];
+
+		for(int i = 0; i <= size; i++) {
+			offsets[i] = i * width;
+		}
+	}
+
+	/**
+	 * Creates empty neighbourhoods where point i holds offsets[i+1] - offsets[i] neighbours.
+	 */
+	public Neighborhoods(int[] offsets) {
+		int entries = offsets[offsets.length - 1];
+
+		this.offsets = offsets;
+		neighbors = new int[entries];
+		distances = new double[entries];
+		kDistance = new double[offsets.length - 1];
+	}
+
+	/**
+	 * Creates neighbourhoods from per point neighbour lists sorted by distance. 
+	 * The k-distance of each point is the distance of its last neighbour.
+	 */
+	public static Neighborhoods fromRows(int[][] neighbors, double[][] distances) {
+		int[] offsets = new int[neighbors.length + 1];
+
+		for(int id = 0; id < neighbors.length; id++) {
+			offsets[id + 1] = offsets[id] + neighbors[id].length;
+		}
+
+		Neighborhoods neighborhoods = new Neighborhoods(offsets);
+
+		for(int id = 0; id < neighbors.length; id++) {
+			int width = neighbors[id].length;
+			System.arraycopy(neighbors[id], 0, neighborhoods.neighbors, offsets[id], width);
+			System.arraycopy(distances[id], 0, neighborhoods.distances, offsets[id], width);
+			neighborhoods.kDistance[id] = width > 0 ? distances[id][width - 1] : 0.0;
+		}
+
+		return neighborhoods;
+	}
+
+	/**
+	 * Returns the neighbourhoods restricted to the nearest width neighbours of each point.
+	 * As neighbours are sorted by distance these are the neighbourhoods of a smaller k.
+	 * @param keepTies also keep all further neighbours at the same distance as the last one
+	 */
+	public Neighborhoods truncate(int width, boolean keepTies) {
+		int size = size();
+		int[] truncatedOffsets = new int[size + 1];
+		boolean unchanged = true;
+
+		for(int id = 0; id < size; id++) {
+			int count = end(id) - start(id);
+
+			if(count < width) {
+				throw new IllegalArgumentException("point " + id + " has less than " + width + " neighbours");
+			}
+
+			int keep = width;
+			if(keepTies) {
+				while(keep < count && distances[start(id) + keep] == distances[start(id) + width - 1]) {
+					keep++;
+				}
+			}
+
+			unchanged &= keep == count;
+			truncatedOffsets[id + 1] = truncatedOffsets[id] + keep;
+		}
+
+		if(unchanged) {
+			return this;
+		}
+
+		Neighborhoods truncated = new Neighborhoods(truncatedOffsets);
+
+		for(int id = 0; id < size; id++) {
+			int keep = truncated.end(id) - truncated.start(id);
+			System.arraycopy(neighbors, start(id), truncated.neighbors, truncated.start(id), keep);
+			System.arraycopy(distances, start(id), truncated.distances, truncated.start(id), keep);
+			truncated.kDistance[id] = distances[start(id) + width - 1];
+		}
+
+		return truncated;
+	}
+
+	/**
+	 * @return number of points
+	 */
+	public int size() {
+		return kDistance.length;
+	}
+
+	/**
+	 * @return first position of the neighbours of the specified point
+	 */
+	public int start(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * @return position after the last neighbour of the specified point
+	 */
+	public int end(int id) {
+		return offsets[id + 1];
+	}
+
+	/**
+	 * @return total number of stored neighbours over all points
+	 */
+	public int entries() {
+		return offsets[offsets.length - 1];
+	}
+
+	public int getNeighbor(int pos) {
+		return neighbors[pos];
+	}
+
+	public double getDistance(int pos) {
+		return distances[pos];
+	}
+
+	public void set(int pos, int neighbor, double distance) {
+		neighbors[pos] = neighbor;
+		distances[pos] = distance;
+	}
+
+	public double getkDistance(int id) {
+		return kDistance[id];
+	}
+
+	public void setkDistance(int id, double distance) {
+		kDistance[id] = distance;
+	}
+}
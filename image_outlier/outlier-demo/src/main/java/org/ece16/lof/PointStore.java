@@ -0,0 +1,141 @@
+package org.ece16.lof;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Fixed size set of points with equal dimension, stored row-major in one contiguous block:
+ * coordinate d of point i is found at position i * dimension + d.
+ *
+ * Points live either in a single heap double[] or in a direct (off-heap) buffer. Compared
+ * to one array per point (or per {@link DataNode}) this avoids millions of small objects
+ * for large data sets, keeps the points of a distance computation close together in memory
+ * and with the off-heap variant keeps the coordinates out of the garbage collected heap.
+ * Heap stores are limited to 2^31-1 coordinates, off-heap stores to 2^31-1 bytes (2^28-1 coordinates).
+ */
+public class PointStore {
+
+	private final int size;
+	private final int dimension;
+	private final double[] data;
+	private final DoubleBuffer buffer;
+
+	/**
+	 * Creates a store for size points with the specified dimension, initialised with zeros.
+	 * @param offHeap store coordinates in a direct buffer outside of the java heap
+	 */
+	public PointStore(int size, int dimension, boolean offHeap) {
+		long coordinates = (long) size * dimension;
+
+		if(coordinates > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(size + " points of dimension " + dimension + " exceed the store capacity");
+		}
+
+		this.size = size;
+		this.dimension = dimension;
+
+		if(offHeap) {
+			long bytes = coordinates * 8;
+			if(bytes > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException(size + " points of dimension " + dimension + " exceed the off-heap store capacity");
+			}
+
+			data = null;
+			buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+		}
+		else {
+			data = new double[(int) coordinates];
+			buffer = null;
+		}
+	}
+
+	/**
+	 * @return heap store holding a copy of the provided points
+	 */
+	public static PointStore of(double[][] points) {
+		return of(points, false);
+	}
+
+	/**
+	 * @return store holding a copy of the provided points
+	 */
+	public static PointStore of(double[][] points, boolean offHeap) {
+		int dimension = points.length > 0 ? points[0].length : 0;
+		PointStore store = new PointStore(points.length, dimension, offHeap);
+
+		for(int i = 0; i < points.length; i++) {
+			store.setPoint(i, points[i]);
+		}
+
+		return store;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int dimension() {
+		return dimension;
+	}
+
+	public boolean isOffHeap() {
+		return buffer != null;
+	}
+
+	public double get(int id, int d) {
+		int pos = id * dimension + d;
+		return data != null ? data[pos] : buffer.get(pos);
+	}
+
+	public void set(int id, int d, double value) {
+		int pos = id * dimension + d;
+
+		if(data != null) { data[pos] = value; }
+		else             { buffer.put(pos, value); }
+	}
+
+	public void setPoint(int id, double[] point) {
+		if(point.length != dimension) {
+			throw new IllegalArgumentException("point " + id + " has dimension " + point.length + ", expected " + dimension);
+		}
+
+		for(int d = 0; d < dimension; d++) {
+			set(id, d, point[d]);
+		}
+	}
+
+	/**
+	 * @return copy of the coordinates of the specified point
+	 */
+	public double[] getPoint(int id) {
+		double[] point = new double[dimension];
+
+		for(int d = 0; d < dimension; d++) {
+			point[d] = get(id, d);
+		}
+
+		return point;
+	}
+
+	/**
+	 * @return Euclidian distance between the two points
+	 */
+	public double distance(int i, int j) {
+		return DistanceMetric.EUCLIDEAN.distance(this, i, j);
+	}
+
+	/**
+	 * @return heap array holding the coordinates, null for off-heap stores
+	 */
+	double[] array() {
+		return data;
+	}
+
+	/**
+	 * @return direct buffer holding the coordinates, null for heap stores
+	 */
+	DoubleBuffer buffer() {
+		return buffer;
+	}
+}
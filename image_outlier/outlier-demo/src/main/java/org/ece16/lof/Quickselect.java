@@ -0,0 +1,45 @@
+package org.ece16.lof;
+
+/**
+ * Partial sorting of point ids by an associated key, used to split index nodes at the median.
+ */
+class Quickselect {
+
+	/**
+	 * Reorders ids[lo..hi) and keys[lo..hi) together such that the element at position k
+	 * is the one that would be there after sorting by key, all elements before it have 
+	 * smaller or equal keys and all elements after it have greater or equal keys.
+	 */
+	static void select(int[] ids, double[] keys, int lo, int hi, int k) {
+		hi--;
+
+		while(hi > lo) {
+			double pivot = keys[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+
+			while(i <= j) {
+				while(keys[i] < pivot) { i++; }
+				while(keys[j] > pivot) { j--; }
+
+				if(i <= j) {
+					swap(ids, keys, i++, j--);
+				}
+			}
+
+			if(k <= j)      { hi = j; }
+			else if(k >= i) { lo = i; }
+			else            { return; }
+		}
+	}
+
+	private static void swap(int[] ids, double[] keys, int i, int j) {
+		int id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+
+		double key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+	}
+}
@@ -0,0 +1,135 @@
+package org.ece16.lof;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Approximate k-nearest neighbour index based on a forest of random projection trees.
+ *
+ * Each tree recursively splits its points at the median of their projection onto a random
+ * Gaussian direction until at most leafSize points remain. The candidates of a query point
+ * are the points sharing a leaf with it in any tree, they are ranked with the exact metric.
+ * Unlike {@link KdTreeIndex} the cost of a query does not grow with the dimension beyond the
+ * distance computations, which makes the index usable for high dimensional data like images.
+ *
+ * More trees and larger leaves increase the recall at the cost of more distance computations
+ * per query (about trees * leafSize). Queries whose candidates do not fill the queue fall back
+ * to a linear scan. {@link LofComparison} reports the resulting error of the LOF ranking.
+ */
+public class RpForestIndex implements KnnIndex {
+
+	public static final int DEFAULT_TREES = 8;
+	public static final int DEFAULT_LEAF_SIZE = 64;
+
+	private final int trees;
+	private final int leafSize;
+	private final long seed;
+
+	private PointStore points;
+	private DistanceMetric metric;
+
+	// per tree: point ids in leaf order and the leaf range [leafStart, leafEnd) of every point
+	private int[][] order;
+	private int[][] leafStart;
+	private int[][] leafEnd;
+
+	private final ThreadLocal<int[]> candidates = new ThreadLocal<int[]>();
+
+	public RpForestIndex() {
+		this(DEFAULT_TREES, DEFAULT_LEAF_SIZE, 0);
+	}
+
+	/**
+	 * @param trees number of random projection trees
+	 * @param leafSize maximum number of points in a leaf
+	 * @param seed seed for the random split directions
+	 */
+	public RpForestIndex(int trees, int leafSize, long seed) {
+		this.trees = Math.max(1, trees);
+		this.leafSize = Math.max(2, leafSize);
+		this.seed = seed;
+	}
+
+	public void build(PointStore points, DistanceMetric metric) {
+		this.points = points;
+		this.metric = metric;
+
+		int n = points.size();
+		order = new int[trees][n];
+		leafStart = new int[trees][n];
+		leafEnd = new int[trees][n];
+
+		double[] keys = new double[n];
+		double[] direction = new double[points.dimension()];
+
+		for(int t = 0; t < trees; t++) {
+			for(int i = 0; i < n; i++) {
+				order[t][i] = i;
+			}
+
+			build(t, 0, n, keys, direction, new Random(seed + t));
+		}
+	}
+
+	private void build(int tree, int lo, int hi, double[] keys, double[] direction, Random random) {
+		int[] ids = order[tree];
+
+		if(hi - lo <= leafSize) {
+			for(int i = lo; i < hi; i++) {
+				leafStart[tree][ids[i]] = lo;
+				leafEnd[tree][ids[i]] = hi;
+			}
+
+			return;
+		}
+
+		for(int d = 0; d < direction.length; d++) {
+			direction[d] = random.nextGaussian();
+		}
+
+		for(int i = lo; i < hi; i++) {
+			keys[i] = DistanceKernels.dot(points, ids[i], direction);
+		}
+
+		int mid = (lo + hi) >>> 1;
+		Quickselect.select(ids, keys, lo, hi, mid);
+
+		build(tree, lo, mid, keys, direction, random);
+		build(tree, mid, hi, keys, direction, random);
+	}
+
+	public void query(int id, NeighborQueue queue) {
+		int[] buffer = candidates.get();
+
+		if(buffer == null || buffer.length < trees * leafSize) {
+			buffer = new int[trees * leafSize];
+			candidates.set(buffer);
+		}
+
+		// union of the leaves of the point in all trees
+		int count = 0;
+		for(int t = 0; t < trees; t++) {
+			for(int i = leafStart[t][id]; i < leafEnd[t][id]; i++) {
+				buffer[count++] = order[t][i];
+			}
+		}
+
+		Arrays.sort(buffer, 0, count);
+
+		for(int i = 0; i < count; i++) {
+			int j = buffer[i];
+			if(j != id && (i == 0 || j != buffer[i - 1])) {
+				queue.offer(j, metric.rankDistance(points, id, j));
+			}
+		}
+
+		if(queue.size() < queue.capacity()) {
+			queue.clear();
+			for(int j = 0; j < points.size(); j++) {
+				if(j != id) {
+					queue.offer(j, metric.rankDistance(points, id, j));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package org.ece16.lof;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Vantage point tree for exact k-nearest neighbour queries. 
+ * Each inner node splits its points into an inside and an outside half by the median 
+ * distance to a randomly chosen vantage point. The tree only relies on the triangle 
+ * inequality and keeps pruning reasonably well for higher dimensional data such as 
+ * the 30 dimensional WDBC features. Supports all metrics for which the triangle inequality holds.
+ */
+public class VpTreeIndex implements KnnIndex {
+
+	public static final int DEFAULT_LEAF_SIZE = 16;
+
+	private final int leafSize;
+	private final long seed;
+
+	private PointStore points;
+	private DistanceMetric metric;
+	private int[] order; // point ids, each node covers a contiguous range
+
+	// node data, leafs have no children (inside = -1)
+	private int nodes;
+	private int[] start;
+	private int[] end;
+	private int[] inside;
+	private int[] outside;
+	private double[] radius;
+
+	public VpTreeIndex() {
+		this(DEFAULT_LEAF_SIZE, 0);
+	}
+
+	public VpTreeIndex(int leafSize, long seed) {
+		this.leafSize = Math.max(1, leafSize);
+		this.seed = seed;
+	}
+
+	public void build(PointStore points, DistanceMetric metric) {
+		if(!metric.isMetric()) {
+			throw new IllegalArgumentException(metric.getClass().getSimpleName() + " is not supported by the VP-tree");
+		}
+
+		this.points = points;
+		this.metric = metric;
+		order = new int[points.size()];
+
+		for(int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		int capacity = 4 * points.size() / leafSize + 1;
+		nodes = 0;
+		start = new int[capacity];
+		end = new int[capacity];
+		inside = new int[capacity];
+		outside = new int[capacity];
+		radius = new double[capacity];
+
+		build(0, points.size(), new double[points.size()], new Random(seed));
+	}
+
+	/**
+	 * The vantage point of an inner node is stored at the first position of its range.
+	 */
+	private int build(int lo, int hi, double[] keys, Random random) {
+		int node = newNode(lo, hi);
+
+		if(hi - lo <= leafSize) {
+			return node;
+		}
+
+		int vp = lo + random.nextInt(hi - lo);
+		int vpId = order[vp];
+		order[vp] = order[lo];
+		order[lo] = vpId;
+
+		for(int i = lo + 1; i < hi; i++) {
+			keys[i] = metric.distance(points, vpId, order[i]);
+		}
+
+		int mid = (lo + 1 + hi) >>> 1;
+		Quickselect.select(order, keys, lo + 1, hi, mid);
+
+		radius[node] = keys[mid];
+
+		int in = build(lo + 1, mid, keys, random);
+		int out = build(mid, hi, keys, random);
+		inside[node] = in;
+		outside[node] = out;
+
+		return node;
+	}
+
+	private int newNode(int lo, int hi) {
+		if(nodes == start.length) {
+			int capacity = 2 * nodes;
+			start = Arrays.copyOf(start, capacity);
+			end = Arrays.copyOf(end, capacity);
+			inside = Arrays.copyOf(inside, capacity);
+			outside = Arrays.copyOf(outside, capacity);
+			radius = Arrays.copyOf(radius, capacity);
+		}
+
+		start[nodes] = lo;
+		end[nodes] = hi;
+		inside[nodes] = -1;
+		outside[nodes] = -1;
+
+		return nodes++;
+	}
+
+	public void query(int id, NeighborQueue queue) {
+		search(0, id, queue);
+	}
+
+	private void search(int node, int id, NeighborQueue queue) {
+		if(inside[node] < 0) {
+			for(int i = start[node]; i < end[node]; i++) {
+				int j = order[i];
+				if(j != id) {
+					queue.offer(j, metric.rankDistance(points, id, j));
+				}
+			}
+
+			return;
+		}
+
+		int vpId = order[start[node]];
+		double rank = metric.rankDistance(points, id, vpId);
+		double d = metric.toDistance(rank);
+
+		if(vpId != id) {
+			queue.offer(vpId, rank);
+		}
+
+		// inside points are at most radius away from the vantage point, outside points at least radius
+		if(d < radius[node]) {
+			search(inside[node], id, queue);
+			if(d + metric.toDistance(queue.bound()) >= radius[node]) {
+				search(outside[node], id, queue);
+			}
+		}
+		else {
+			search(outside[node], id, queue);
+			if(d - metric.toDistance(queue.bound()) <= radius[node]) {
+				search(inside[node], id, queue);
+			}
+		}
+	}
+}
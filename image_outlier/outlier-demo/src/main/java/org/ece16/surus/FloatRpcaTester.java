@@ -0,0 +1,134 @@
+package org.ece16.surus;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.ece16.lof.BreastCancerWisconsinDataLoader;
+import org.surus.math.FloatRPCA;
+import org.surus.math.Outlier;
+import org.surus.math.RPCA;
+import org.surus.math.RpcaStatistics;
+
+/**
+ * Accuracy and speed report of {@link FloatRPCA} against the double precision {@link RPCA} on the Surus
+ * example, the Boston housing and WDBC data and synthetic low rank matrices with sparse outliers.
+ * Differences are relative to the largest absolute entry of X. Stage times are per iteration,
+ * the best of several runs.
+ */
+public class FloatRpcaTester {
+
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) throws IOException {
+
+		if(args.length > 1) {
+			System.err.println("usage: java org.ece16.surus.FloatRpcaTester [data-directory]");
+			System.exit(1);
+		}
+
+		String directory = args.length > 0 ? args[0] : "data";
+
+		compare("surus example", RpcaTester.surusExample(), 1.4 / 3);
+		compare("housing", BostonHousingDataLoader.doubleMatrixFromFile(new File(directory, "housing.data").getPath()), 1.4 / Math.sqrt(506));
+		double[][] wdbc = new BreastCancerWisconsinDataLoader(new File(directory, "wdbc.data").getPath()).getMatrix();
+		compare("wdbc", wdbc, 1.4 / Math.sqrt(wdbc.length));
+		compare("synthetic 500 x 100", lowRankPlusSparse(500, 100, 3, 1), 1.4 / Math.sqrt(500));
+		compare("synthetic 2000 x 200", lowRankPlusSparse(2000, 200, 3, 1), 1.4 / Math.sqrt(2000));
+	}
+
+	private static void compare(String name, double[][] x, double spenalty) {
+		RPCA rpca = null;
+		FloatRPCA floatRpca = null;
+		double doubleElementwise = Double.MAX_VALUE;
+		double doubleSvd = Double.MAX_VALUE;
+		double floatElementwise = Double.MAX_VALUE;
+		double floatSvd = Double.MAX_VALUE;
+
+		for(int run = 0; run < RUNS; run++) {
+			rpca = new RPCA(x, 1, spenalty);
+			RpcaStatistics statistics = rpca.getStatistics();
+			doubleElementwise = Math.min(doubleElementwise, statistics.getElementwiseNanos() / 1e6 / rpca.getIterations());
+			doubleSvd = Math.min(doubleSvd, statistics.getSvdNanos() / 1e6 / rpca.getIterations());
+
+			floatRpca = new FloatRPCA(x, 1, spenalty);
+			floatElementwise = Math.min(floatElementwise, floatRpca.getElementwiseNanos() / 1e6 / floatRpca.getIterations());
+			floatSvd = Math.min(floatSvd, floatRpca.getSvdNanos() / 1e6 / floatRpca.getIterations());
+		}
+
+		double scale = 0;
+		for(double[] row : x) {
+			for(double value : row) {
+				scale = Math.max(scale, Math.abs(value));
+			}
+		}
+
+		List<Outlier> outliers = rpca.getOutliers(0);
+		List<Outlier> floatOutliers = floatRpca.getOutliers(0);
+		boolean[][] mask = rpca.getOutlierMask(0);
+		int common = 0;
+		for(Outlier outlier : floatOutliers) {
+			if(mask[outlier.getRow()][outlier.getCol()]) {
+				common++;
+			}
+		}
+
+		System.out.printf("%s (%d x %d)\n", name, x.length, x[0].length);
+		System.out.printf("  iterations double %d float %d, rank double %d float %d\n",
+				rpca.getIterations(), floatRpca.getIterations(), rpca.getRank(), floatRpca.getRank());
+		System.out.printf("  max relative difference L %.3g S %.3g E %.3g\n",
+				maxDifference(rpca.getL().getData(), floatRpca.getL()) / scale,
+				maxDifference(rpca.getS().getData(), floatRpca.getS()) / scale,
+				maxDifference(rpca.getE().getData(), floatRpca.getE()) / scale);
+		System.out.printf("  non-zero S double %d float %d common %d\n", outliers.size(), floatOutliers.size(), common);
+		System.out.printf("  elementwise ms/iteration double %.4f float %.4f (%.2fx)\n",
+				doubleElementwise, floatElementwise, doubleElementwise / floatElementwise);
+		System.out.printf("  svd ms/iteration double %.4f float %.4f (%.2fx)\n", doubleSvd, floatSvd, doubleSvd / floatSvd);
+	}
+
+	private static double maxDifference(double[][] a, float[][] b) {
+		double max = 0;
+
+		for(int i = 0; i < a.length; i++) {
+			for(int j = 0; j < a[i].length; j++) {
+				max = Math.max(max, Math.abs(a[i][j] - b[i][j]));
+			}
+		}
+
+		return max;
+	}
+
+	private static double[][] lowRankPlusSparse(int rows, int cols, int rank, long seed) {
+		Random random = new Random(seed);
+		double[][] u = new double[rows][rank];
+		double[][] v = new double[rank][cols];
+		double[][] x = new double[rows][cols];
+
+		for(int i = 0; i < rows; i++) {
+			for(int r = 0; r < rank; r++) {
+				u[i][r] = random.nextGaussian();
+			}
+		}
+
+		for(int r = 0; r < rank; r++) {
+			for(int j = 0; j < cols; j++) {
+				v[r][j] = random.nextGaussian();
+			}
+		}
+
+		for(int i = 0; i < rows; i++) {
+			for(int j = 0; j < cols; j++) {
+				x[i][j] = 0.3 * random.nextGaussian();
+				for(int r = 0; r < rank; r++) {
+					x[i][j] += u[i][r] * v[r][j];
+				}
+				if(random.nextDouble() < 0.02) {
+					x[i][j] += random.nextBoolean() ? 10 : -10;
+				}
+			}
+		}
+
+		return x;
+	}
+}
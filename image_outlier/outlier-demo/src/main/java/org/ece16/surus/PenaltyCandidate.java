@@ -0,0 +1,40 @@
+package org.ece16.surus;
+
+import org.surus.math.RpcaResult;
+
+/**
+ * Decomposition for one sparse penalty tried by a {@link PenaltySearch}.
+ */
+public class PenaltyCandidate {
+
+	private final double spenalty;
+	private final RpcaResult result;
+	private final double sparsity;
+
+	PenaltyCandidate(double spenalty, RpcaResult result) {
+		this.spenalty = spenalty;
+		this.result = result;
+		this.sparsity = (double) result.getS().getNonZeros() / (result.getS().getRows() * result.getS().getCols());
+	}
+
+	public double getSpenalty() {
+		return spenalty;
+	}
+
+	public RpcaResult getResult() {
+		return result;
+	}
+
+	/**
+	 * @return fraction of the entries of S that are not zero
+	 */
+	public double getSparsity() {
+		return sparsity;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("spenalty %.4f: rank %d, non-zero S %.4f, %d iterations",
+				spenalty, result.getStatistics().getRank(), sparsity, result.getStatistics().getIterations());
+	}
+}
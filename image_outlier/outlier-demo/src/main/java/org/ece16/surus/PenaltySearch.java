@@ -0,0 +1,130 @@
+package org.ece16.surus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.surus.math.RpcaBatch;
+import org.surus.math.RpcaResult;
+import org.surus.math.RpcaTask;
+
+/**
+ * Replaces manual trial runs of RPCA with different sparse penalties: decomposes one (scaled) matrix
+ * for a list of penalty candidates in parallel and selects the candidate whose fraction of
+ * non-zero entries in S is closest to the expected fraction of outliers.
+ *
+ * All candidates share the same input matrix, the decompositions run on an {@link RpcaBatch}.
+ * By default the candidates are 0.5 to 3 times {@link #defaultPenalty(int, int)}.
+ */
+public class PenaltySearch {
+
+	private static final double[] DEFAULT_FACTORS = {0.5, 0.75, 1.0, 1.4, 2.0, 3.0};
+
+	private final double[][] data;
+	private double lpenalty = 1.0;
+	private double[] candidates;
+	private double targetSparsity = 0.05;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private List<PenaltyCandidate> results;
+
+	/**
+	 * @param data matrix to decompose, usually scaled by a {@link RobustScaler}
+	 */
+	public PenaltySearch(double[][] data) {
+		this.data = data;
+
+		double penalty = defaultPenalty(data.length, data[0].length);
+		candidates = new double[DEFAULT_FACTORS.length];
+		for(int c = 0; c < candidates.length; c++) {
+			candidates[c] = DEFAULT_FACTORS[c] * penalty;
+		}
+	}
+
+	/**
+	 * @return default sparse penalty 1 / sqrt(max(rows, cols))
+	 */
+	public static double defaultPenalty(int rows, int cols) {
+		return 1.0 / Math.sqrt(Math.max(rows, cols));
+	}
+
+	/**
+	 * Sets the penalty of the low rank component (default: 1).
+	 */
+	public void setLpenalty(double lpenalty) {
+		this.lpenalty = lpenalty;
+	}
+
+	/**
+	 * Sets the sparse penalties to try.
+	 */
+	public void setCandidates(double... candidates) {
+		if(candidates.length == 0) {
+			throw new IllegalArgumentException("no penalty candidates");
+		}
+
+		this.candidates = candidates.clone();
+	}
+
+	/**
+	 * Sets the expected fraction of outlying entries (default: 0.05).
+	 */
+	public void setTargetSparsity(double targetSparsity) {
+		this.targetSparsity = targetSparsity;
+	}
+
+	/**
+	 * Sets the number of decompositions that run in parallel (default: number of processors).
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Decomposes the data for all candidates.
+	 * @return the candidate whose sparsity is closest to the target
+	 */
+	public PenaltyCandidate search() {
+		List<RpcaTask> tasks = new ArrayList<RpcaTask>();
+		for(int c = 0; c < candidates.length; c++) {
+			tasks.add(new RpcaTask(Integer.toString(c), data, lpenalty, candidates[c]));
+		}
+
+		RpcaBatch batch = new RpcaBatch(Math.min(threads, candidates.length));
+		results = new ArrayList<PenaltyCandidate>();
+
+		try {
+			for(Iterator<RpcaResult> it = batch.decompose(tasks); it.hasNext(); ) {
+				RpcaResult result = it.next();
+				results.add(new PenaltyCandidate(candidates[Integer.parseInt(result.getId())], result));
+			}
+		}
+		finally {
+			batch.shutdown();
+		}
+
+		Collections.sort(results, new Comparator<PenaltyCandidate>() {
+			public int compare(PenaltyCandidate a, PenaltyCandidate b) {
+				return Double.compare(a.getSpenalty(), b.getSpenalty());
+			}
+		});
+
+		PenaltyCandidate best = null;
+		for(PenaltyCandidate candidate : results) {
+			if(best == null || Math.abs(candidate.getSparsity() - targetSparsity) < Math.abs(best.getSparsity() - targetSparsity)) {
+				best = candidate;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * @return all candidates of the last search ordered by penalty
+	 */
+	public List<PenaltyCandidate> getResults() {
+		return results;
+	}
+}
@@ -0,0 +1,99 @@
+package org.ece16.surus;
+
+import java.util.Arrays;
+
+/**
+ * Robust per-column scaling for RPCA on raw tabular data: x' = (x - median) / (1.4826 * MAD).
+ *
+ * The factor 1.4826 makes the MAD (median absolute deviation) a consistent estimate of the standard
+ * deviation for normal data, so scaled columns have unit spread and outliers do not influence
+ * the scale. Columns whose MAD is 0 (e.g. mostly constant or binary columns) fall back to the
+ * mean absolute deviation from the median, constant columns are only centred.
+ */
+public class RobustScaler {
+
+	private static final double MAD_TO_SD = 1.4826;
+
+	private final double[] medians;
+	private final double[] scales;
+
+	/**
+	 * Computes median and scale of every column of the data.
+	 */
+	public RobustScaler(double[][] data) {
+		int cols = data[0].length;
+		medians = new double[cols];
+		scales = new double[cols];
+
+		double[] column = new double[data.length];
+
+		for(int j = 0; j < cols; j++) {
+			for(int i = 0; i < data.length; i++) {
+				column[i] = data[i][j];
+			}
+
+			double median = median(column);
+			double meanDeviation = 0;
+
+			for(int i = 0; i < data.length; i++) {
+				column[i] = Math.abs(column[i] - median);
+				meanDeviation += column[i];
+			}
+
+			double scale = MAD_TO_SD * median(column);
+			if(scale == 0) {
+				scale = meanDeviation / data.length;
+			}
+
+			medians[j] = median;
+			scales[j] = scale > 0 ? scale : 1;
+		}
+	}
+
+	/**
+	 * @return median of the values, the array is sorted
+	 */
+	private static double median(double[] values) {
+		Arrays.sort(values);
+		int n = values.length;
+		return n % 2 == 1 ? values[n / 2] : 0.5 * (values[n / 2 - 1] + values[n / 2]);
+	}
+
+	/**
+	 * @return scaled copy of the data
+	 */
+	public double[][] scale(double[][] data) {
+		double[][] scaled = new double[data.length][medians.length];
+
+		for(int i = 0; i < data.length; i++) {
+			for(int j = 0; j < medians.length; j++) {
+				scaled[i][j] = (data[i][j] - medians[j]) / scales[j];
+			}
+		}
+
+		return scaled;
+	}
+
+	/**
+	 * @return copy of a scaled matrix (e.g. L of the scaled data) in the units of the data
+	 */
+	public double[][] unscale(double[][] scaled) {
+		double[][] data = new double[scaled.length][medians.length];
+
+		for(int i = 0; i < scaled.length; i++) {
+			for(int j = 0; j < medians.length; j++) {
+				data[i][j] = scaled[i][j] * scales[j] + medians[j];
+			}
+		}
+
+		return data;
+	}
+
+	public double getMedian(int col) {
+		return medians[col];
+	}
+
+	public double getScale(int col) {
+		return scales[col];
+	}
+}
@@ -1,5 +1,8 @@
 package org.ece16.surus;
 
+import java.util.List;
+
+import org.surus.math.Outlier;
 import org.surus.math.RPCA;
 
 public class RpcaTester {
@@ -40,6 +43,7 @@ public class RpcaTester {
     double[][] L_matrix_r = VectorToMatrix(L_r, 7, 9);
     
     RPCA rsvd = new RPCA(X, 1, 1.4/3);
+    System.out.println(rsvd.getStatistics());
     
     double[][] E = rsvd.getE().getData();
     double[][] S = rsvd.getS().getData();
@@ -71,27 +75,65 @@ public class RpcaTester {
 	
 	System.out.println("outlier output");
 	
-	for(int i = 0; i < S.length; i++) {
+	List<Outlier> outliers = rsvd.getOutliers(threshold);
+	boolean[][] mask = new boolean[S.length][S[0].length];
+	
+	for(Outlier outlier : outliers) {
+		System.out.println(outlier);
+		mask[outlier.getRow()][outlier.getCol()] = true;
+	}
+	
+	for(int i = 0; i < mask.length; i++) {
 		System.out.print("row["+i+"]={");
 		
-		for(int j = 0; j < S[0].length; j++) {
-			if(Math.abs(S[i][j]) >= threshold) { System.out.print("*"); }
-			else                               { System.out.print("."); }
+		for(int j = 0; j < mask[0].length; j++) {
+			if(mask[i][j]) { System.out.print("*"); }
+			else           { System.out.print("."); }
 		}
 		
 		System.out.println();
 	}
   }
 
-  public static void main(String [] args) throws Exception {
-	// X:
+  /**
+   * @return the 7 x 9 example matrix X of the Surus RPCA tests
+   */
+  public static double[][] surusExample() {
     double[] ts = new double[] {2.05407309078346,2.85886923211884,2.89728554463089,0.790480493540229,0.548595335194215,1.31367506547418,1.74407133897301,4.06071962679526,2.75651081738515,0.604658754735038,0.182607837501951,-1.262201503678,0.996560864201235,2.74637817075616,0.775004762296101,0.906823901472144,2.6839457174704,-0.0625841462071901,-1.09641353766956,0.00479165991036998,0.449351175604642,3.53152043857777,1.05206417605014,2.7864942275709,-0.691007430091048,-1.02038488026721,-1.35124486835257,0.0621976297222073,2.82421545538541,2.41312411015615,1.27711183784622,0.0988204592711682,1.50691474460298,0.272037685359444,1.9889742629239,3.33907184622517,3.68134545243902,0.751559686193563,0.679120355399832,0.428056866405207,0.351341204822829,1.33498418531095,3.04169869243666,1.22542459625713,1.35457091793328,0.567124649501233,-1.95560538335988,-1.09014280752067,1.80062291606412,0.588637569785287,1.89212604693897,1.38386740607786,0.356716316822486,-2.07161693692556,4,1.44451323393473,3.52551739267569,3.16481926426412,1.83839333727511,0.827646664705546,0.654351159135431,-0.00892931340717523,0.678082675364184};
-	double[][] X = VectorToMatrix(ts, 7, 9);
+    return VectorToMatrix(ts, 7, 9);
+  }
+
+  public static void main(String [] args) throws Exception {
+	if(args.length > 0) {
+		testTabular(BostonHousingDataLoader.doubleMatrixFromFile(args[0]));
+		return;
+	}
 	
-	// using raw boston housing data works badly
-	// double[][] X = BostonHousingDataLoader.doubleMatrixFromFile(args[0]);
+	double[][] X = surusExample();
 	
 	  RpcaTester rpca = new RpcaTester();
 	  rpca.testRSVD(X, 0.01);
   }
+
+  /**
+   * Raw tabular data (e.g. Boston housing) mixes columns of very different scales,
+   * so the columns are scaled robustly and the sparse penalty is searched.
+   */
+  public static void testTabular(double[][] data) {
+	RobustScaler scaler = new RobustScaler(data);
+	PenaltySearch search = new PenaltySearch(scaler.scale(data));
+	PenaltyCandidate best = search.search();
+	
+	for(PenaltyCandidate candidate : search.getResults()) {
+		System.out.println((candidate == best ? "* " : "  ") + candidate);
+	}
+	
+	System.out.println("outlier output");
+	
+	for(Outlier outlier : best.getResult().getS().getOutliers(1)) {
+		int row = outlier.getRow();
+		int col = outlier.getCol();
+		System.out.println("row " + row + " col " + col + ": " + data[row][col] + " (median " + scaler.getMedian(col) + ")");
+	}
+  }
 }
@@ -0,0 +1,97 @@
+package org.surus.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs loops over index ranges (row blocks of RPCA, point ids of LOF) either in the calling thread
+ * or split into chunks on the worker threads of a fork join pool.
+ */
+public class BlockExecutor {
+
+	/**
+	 * Loop body for the indices lo (inclusive) to hi (exclusive).
+	 * Bodies must only write to data owned by the indices of their range.
+	 */
+	public interface Body {
+		void run(int lo, int hi);
+	}
+
+	/**
+	 * Shared executor that runs all loops in the calling thread.
+	 */
+	public static final BlockExecutor SEQUENTIAL = new BlockExecutor(1);
+
+	public static final int DEFAULT_CHUNKS_PER_THREAD = 4;
+
+	private final int parallelism;
+	private final int chunksPerThread;
+	private final ForkJoinPool pool;
+
+	/**
+	 * @param parallelism number of worker threads, 1 runs all loops sequentially in the calling thread
+	 */
+	public BlockExecutor(int parallelism) {
+		this(parallelism, DEFAULT_CHUNKS_PER_THREAD);
+	}
+
+	/**
+	 * @param chunksPerThread number of chunks per worker a loop is split into, more chunks balance uneven work better
+	 */
+	public BlockExecutor(int parallelism, int chunksPerThread) {
+		this.parallelism = Math.max(1, parallelism);
+		this.chunksPerThread = Math.max(1, chunksPerThread);
+		this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void forEach(int n, Body body) {
+		if(pool == null || n < 2) {
+			body.run(0, n);
+		}
+		else {
+			int grain = Math.max(1, n / (chunksPerThread * parallelism));
+			pool.invoke(new BlockAction(body, 0, n, grain));
+		}
+	}
+
+	/**
+	 * Stops the worker threads, the executor must not be used afterwards.
+	 */
+	public void shutdown() {
+		if(pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	private static class BlockAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Body body;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		BlockAction(Body body, int lo, int hi, int grain) {
+			this.body = body;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo <= grain) {
+				body.run(lo, hi);
+			}
+			else {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockAction(body, lo, mid, grain), new BlockAction(body, mid, hi, grain));
+			}
+		}
+	}
+}
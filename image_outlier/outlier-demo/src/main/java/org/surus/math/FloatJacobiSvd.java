@@ -0,0 +1,188 @@
+package org.surus.math;
+
+/**
+ * One-sided Jacobi (Hestenes) singular value decomposition in single precision for {@link FloatRPCA}.
+ *
+ * The columns of G = A * V are orthogonalized by plane rotations that are accumulated in V,
+ * then the singular values are the column norms of G and U = G / sigma. Matrices with more
+ * columns than rows are decomposed transposed. Entries are stored as float, dot products are
+ * accumulated in double. The rotations of the previous decomposition of a matrix with the same
+ * dimensions are used as starting point, which in RPCA, where X - S changes little between
+ * iterations, cuts the number of sweeps to one or two.
+ */
+class FloatJacobiSvd {
+
+	private static final int MAX_SWEEPS = 60;
+	private static final double TOLERANCE = 1e-6;
+
+	private int rows = -1;
+	private int cols = -1;
+	private boolean transposed;
+	private int m; // length of the columns of G
+	private int n; // number of columns of G
+
+	private float[] g = new float[0];
+	private float[] v = new float[0];
+	private float[] column = new float[0];
+	private double[] sigma = new double[0];
+	private int[] order = new int[0];
+
+	/**
+	 * Decomposes the rows x cols matrix X - S given by two row-major arrays.
+	 * @return number of singular values above the threshold
+	 */
+	int decompose(float[] x, float[] s, int rows, int cols, double threshold) {
+		if(rows != this.rows || cols != this.cols) {
+			init(rows, cols);
+		}
+
+		// G = A V with the rotations of the previous call
+		for(int i = 0; i < m; i++) {
+			for(int k = 0; k < n; k++) {
+				column[k] = transposed ? x[k * cols + i] - s[k * cols + i] : x[i * cols + k] - s[i * cols + k];
+			}
+
+			for(int j = 0; j < n; j++) {
+				double dot = 0;
+				for(int k = 0; k < n; k++) {
+					dot += column[k] * v[j * n + k];
+				}
+				g[j * m + i] = (float) dot;
+			}
+		}
+
+		for(int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			if(!sweep()) {
+				break;
+			}
+		}
+
+		for(int j = 0; j < n; j++) {
+			double norm = 0;
+			for(int i = 0; i < m; i++) {
+				norm += g[j * m + i] * g[j * m + i];
+			}
+			sigma[j] = Math.sqrt(norm);
+			order[j] = j;
+		}
+
+		// insertion sort by decreasing singular value, n is small
+		for(int j = 1; j < n; j++) {
+			int c = order[j];
+			int k = j - 1;
+			while(k >= 0 && sigma[order[k]] < sigma[c]) {
+				order[k + 1] = order[k];
+				k--;
+			}
+			order[k + 1] = c;
+		}
+
+		int rank = 0;
+		while(rank < n && sigma[order[rank]] > threshold) {
+			rank++;
+		}
+
+		return rank;
+	}
+
+	/**
+	 * @return true if a rotation was applied
+	 */
+	private boolean sweep() {
+		boolean rotated = false;
+
+		for(int p = 0; p < n - 1; p++) {
+			for(int q = p + 1; q < n; q++) {
+				double alpha = 0;
+				double beta = 0;
+				double gamma = 0;
+
+				for(int i = 0; i < m; i++) {
+					double gp = g[p * m + i];
+					double gq = g[q * m + i];
+					alpha += gp * gp;
+					beta += gq * gq;
+					gamma += gp * gq;
+				}
+
+				if(gamma == 0 || Math.abs(gamma) <= TOLERANCE * Math.sqrt(alpha * beta)) {
+					continue;
+				}
+
+				double zeta = (beta - alpha) / (2 * gamma);
+				double t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+				if(zeta == 0) {
+					t = 1;
+				}
+				double c = 1 / Math.sqrt(1 + t * t);
+				double sn = c * t;
+
+				rotate(g, p * m, q * m, m, c, sn);
+				rotate(v, p * n, q * n, n, c, sn);
+				rotated = true;
+			}
+		}
+
+		return rotated;
+	}
+
+	private static void rotate(float[] a, int p, int q, int length, double c, double s) {
+		for(int i = 0; i < length; i++) {
+			double ap = a[p + i];
+			double aq = a[q + i];
+			a[p + i] = (float) (c * ap - s * aq);
+			a[q + i] = (float) (s * ap + c * aq);
+		}
+	}
+
+	private void init(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		transposed = cols > rows;
+		m = transposed ? cols : rows;
+		n = transposed ? rows : cols;
+
+		g = new float[m * n];
+		v = new float[n * n];
+		column = new float[n];
+		sigma = new double[n];
+		order = new int[n];
+
+		for(int j = 0; j < n; j++) {
+			v[j * n + j] = 1;
+		}
+	}
+
+	/**
+	 * Computes L = U * (D - penalty) * V^T (row-major) from the first rank singular triplets.
+	 * @return sum of the shrunk singular values
+	 */
+	double reconstruct(float[] l, int rank, double penalty) {
+		double sum = 0;
+		double[] scale = new double[rank];
+
+		for(int r = 0; r < rank; r++) {
+			double d = sigma[order[r]] - penalty;
+			sum += d;
+			scale[r] = d / sigma[order[r]];
+		}
+
+		for(int i = 0; i < rows; i++) {
+			for(int j = 0; j < cols; j++) {
+				double value = 0;
+
+				for(int r = 0; r < rank; r++) {
+					int c = order[r];
+					// A = G V^T, or A^T = G V^T when transposed
+					value += transposed
+							? scale[r] * v[c * n + i] * g[c * m + j]
+							: scale[r] * g[c * m + i] * v[c * n + j];
+				}
+
+				l[i * cols + j] = (float) value;
+			}
+		}
+
+		return sum;
+	}
+}
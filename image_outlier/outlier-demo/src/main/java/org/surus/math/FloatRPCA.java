@@ -0,0 +1,247 @@
+package org.surus.math;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single precision variant of {@link RPCA} for matrices that do not fit in memory at 8 bytes per entry.
+ *
+ * X, L and S are kept as row-major float[] buffers and E is only computed on demand, so besides
+ * the data a decomposition needs two float buffers plus the working copy of the
+ * {@link FloatJacobiSvd}, about a third of the memory of the double version. Sums, norms and the
+ * variance of E are accumulated in double. The iterations follow {@link RPCA}, results agree
+ * to single precision accuracy (see {@code org.ece16.surus.FloatRpcaTester}).
+ *
+ * The objective cannot be resolved better than float rounding, so the default tolerance of the
+ * stopping criterion is 1e-6 relative to the initial objective instead of 1e-8.
+ */
+public class FloatRPCA {
+
+	public static final double DEFAULT_TOLERANCE = 1e-6;
+
+	private static final int MAX_ITERS = 228;
+
+	private final int rows;
+	private final int cols;
+
+	private final float[] x;
+	private final float[] l;
+	private final float[] s;
+
+	private final double lpenalty;
+	private final double spenalty;
+	private final double tolerance;
+
+	private final FloatJacobiSvd svd = new FloatJacobiSvd();
+	private int rank;
+	private double mu;
+	private double eVariance;
+	private int iterations;
+	private long svdNanos;
+	private long elementwiseNanos;
+
+	public FloatRPCA(double[][] data, double lpenalty, double spenalty) {
+		this(toFloat(data), data.length, data[0].length, lpenalty, spenalty, DEFAULT_TOLERANCE);
+	}
+
+	public FloatRPCA(float[][] data, double lpenalty, double spenalty) {
+		this(flatten(data), data.length, data[0].length, lpenalty, spenalty, DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * @param data row-major rows x cols matrix, used without copying and not modified
+	 * @param tolerance stops when the objective changes less than this fraction of 0.5 * ||X||^2
+	 */
+	public FloatRPCA(float[] data, int rows, int cols, double lpenalty, double spenalty, double tolerance) {
+		if(data.length != rows * cols) {
+			throw new IllegalArgumentException("data has " + data.length + " entries, expected " + rows + " x " + cols);
+		}
+
+		this.rows = rows;
+		this.cols = cols;
+		this.x = data;
+		this.lpenalty = lpenalty;
+		this.spenalty = spenalty;
+		this.tolerance = tolerance;
+
+		l = new float[rows * cols];
+		s = new float[rows * cols];
+
+		computeRSVD();
+	}
+
+	private static float[] toFloat(double[][] data) {
+		int cols = data[0].length;
+		float[] flat = new float[data.length * cols];
+
+		for(int i = 0; i < data.length; i++) {
+			for(int j = 0; j < cols; j++) {
+				flat[i * cols + j] = (float) data[i][j];
+			}
+		}
+
+		return flat;
+	}
+
+	private static float[] flatten(float[][] data) {
+		int cols = data[0].length;
+		float[] flat = new float[data.length * cols];
+
+		for(int i = 0; i < data.length; i++) {
+			System.arraycopy(data[i], 0, flat, i * cols, cols);
+		}
+
+		return flat;
+	}
+
+	private void computeRSVD() {
+		double l1 = 0;
+		double sumSquares = 0;
+
+		for(int i = 0; i < x.length; i++) {
+			l1 += Math.abs(x[i]);
+			sumSquares += (double) x[i] * x[i];
+		}
+
+		mu = cols * rows / (4 * l1);
+		double objPrev = 0.5 * sumSquares;
+		double tol = tolerance * objPrev;
+		double diff = 2 * tol;
+
+		while(diff > tol && iterations < MAX_ITERS) {
+			long iterationStart = System.nanoTime();
+			double nuclearNorm = computeS(mu);
+			long svdStart = System.nanoTime();
+			double l1Norm = computeL(mu);
+			long svdEnd = System.nanoTime();
+			double l2Norm = computeE();
+			long iterationEnd = System.nanoTime();
+
+			svdNanos += svdEnd - svdStart;
+			elementwiseNanos += (svdStart - iterationStart) + (iterationEnd - svdEnd);
+
+			double obj = 0.5 * l2Norm + nuclearNorm + l1Norm;
+			diff = Math.abs(objPrev - obj);
+			objPrev = obj;
+
+			mu = Math.max(.01, Math.sqrt(eVariance) * Math.sqrt(2 * Math.max(rows, cols)));
+			iterations++;
+		}
+	}
+
+	/**
+	 * Computes S = softThreshold(X - L).
+	 */
+	private double computeS(double mu) {
+		float penalty = (float) (spenalty * mu);
+		double l1norm = 0;
+
+		for(int i = 0; i < x.length; i++) {
+			float r = x[i] - l[i];
+			float penalized = r > penalty ? r - penalty : (r < -penalty ? r + penalty : 0);
+			s[i] = penalized;
+			l1norm += Math.abs(penalized);
+		}
+
+		return l1norm * penalty;
+	}
+
+	/**
+	 * Computes L by soft-thresholding the singular values of X - S.
+	 */
+	private double computeL(double mu) {
+		double penalty = lpenalty * mu;
+		rank = svd.decompose(x, s, rows, cols, penalty);
+		return svd.reconstruct(l, rank, penalty) * penalty;
+	}
+
+	/**
+	 * Computes the squared Frobenius norm and the variance of E = X - L - S without storing E.
+	 */
+	private double computeE() {
+		double sumSquares = 0;
+		double mean = 0;
+		double m2 = 0;
+
+		for(int i = 0; i < x.length; i++) {
+			double value = x[i] - l[i] - s[i];
+			sumSquares += value * value;
+
+			double delta = value - mean;
+			mean += delta / (i + 1);
+			m2 += delta * (value - mean);
+		}
+
+		eVariance = x.length > 1 ? m2 / (x.length - 1) : 0;
+		return sumSquares;
+	}
+
+	private float[][] toArray(float[] data, float[] minus1, float[] minus2) {
+		float[][] matrix = new float[rows][cols];
+
+		for(int i = 0; i < rows; i++) {
+			for(int j = 0; j < cols; j++) {
+				int k = i * cols + j;
+				matrix[i][j] = minus1 == null ? data[k] : data[k] - minus1[k] - minus2[k];
+			}
+		}
+
+		return matrix;
+	}
+
+	public float[][] getL() {
+		return toArray(l, null, null);
+	}
+
+	public float[][] getS() {
+		return toArray(s, null, null);
+	}
+
+	public float[][] getE() {
+		return toArray(x, l, s);
+	}
+
+	/**
+	 * @return the entries of S whose absolute value exceeds the threshold in row-major order
+	 */
+	public List<Outlier> getOutliers(double threshold) {
+		List<Outlier> outliers = new ArrayList<Outlier>();
+
+		for(int i = 0; i < s.length; i++) {
+			if(Math.abs(s[i]) > threshold) {
+				outliers.add(new Outlier(i / cols, i % cols, s[i]));
+			}
+		}
+
+		return outliers;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return time spent in the SVD of all iterations, as {@link RpcaStatistics#getSvdNanos()}
+	 */
+	public long getSvdNanos() {
+		return svdNanos;
+	}
+
+	/**
+	 * @return time spent in the elementwise passes (S and E) of all iterations, as {@link RpcaStatistics#getElementwiseNanos()}
+	 */
+	public long getElementwiseNanos() {
+		return elementwiseNanos;
+	}
+
+	/**
+	 * @return rank of L
+	 */
+	public int getRank() {
+		return rank;
+	}
+
+	public double getMu() {
+		return mu;
+	}
+}
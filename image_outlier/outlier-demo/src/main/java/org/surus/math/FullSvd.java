@@ -0,0 +1,57 @@
+package org.surus.math;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+/**
+ * Complete singular value decomposition with commons-math, truncated after the computation.
+ * This is the reference strategy and the default of {@link RPCA}.
+ */
+public class FullSvd implements SvdStrategy {
+
+	/**
+	 * Runs in the calling thread, the executor is not used.
+	 */
+	public SingularTriplets decompose(double[] a, int rows, int cols, double threshold, int rankHint, BlockExecutor executor) {
+		double[][] data = new double[rows][cols];
+		for(int i = 0; i < rows; i++) {
+			System.arraycopy(a, i * cols, data[i], 0, cols);
+		}
+
+		SingularValueDecomposition svd = new SingularValueDecomposition(new Array2DRowRealMatrix(data, false));
+		return truncate(svd.getU(), svd.getSingularValues(), svd.getV(), threshold);
+	}
+
+	/**
+	 * @return the triplets of the decomposition U * diag(s) * V^T with singular value above the threshold
+	 */
+	static SingularTriplets truncate(RealMatrix u, double[] s, RealMatrix v, double threshold) {
+		int rank = 0;
+		while(rank < s.length && s[rank] > threshold) {
+			rank++;
+		}
+
+		int rows = u.getRowDimension();
+		int cols = v.getRowDimension();
+		double[] uData = new double[rows * rank];
+		double[] vData = new double[cols * rank];
+
+		for(int i = 0; i < rows; i++) {
+			for(int r = 0; r < rank; r++) {
+				uData[i * rank + r] = u.getEntry(i, r);
+			}
+		}
+
+		for(int j = 0; j < cols; j++) {
+			for(int r = 0; r < rank; r++) {
+				vData[j * rank + r] = v.getEntry(j, r);
+			}
+		}
+
+		double[] sData = new double[rank];
+		System.arraycopy(s, 0, sData, 0, rank);
+
+		return new SingularTriplets(rows, cols, rank, uData, sData, vData);
+	}
+}
@@ -0,0 +1,164 @@
+package org.surus.math;
+
+/**
+ * Dense matrix operations on row-major double arrays.
+ *
+ * Products are split into blocks of output rows that run in parallel on a {@link BlockExecutor}.
+ * Every output entry is accumulated in the same order for any number of threads, so results
+ * do not depend on the parallelism.
+ */
+final class MatrixKernels {
+
+	/** rows of the output per parallel task */
+	private static final int ROW_BLOCK = 32;
+
+	/** rows of B kept in cache while computing A * B^T */
+	private static final int COLUMN_TILE = 64;
+
+	private MatrixKernels() {
+	}
+
+	static void multiply(double[] a, double[] b, double[] c, int m, int k, int n) {
+		multiply(a, b, c, m, k, n, BlockExecutor.SEQUENTIAL);
+	}
+
+	/**
+	 * Computes C = A * B for A (m x k) and B (k x n), C (m x n) is overwritten.
+	 */
+	static void multiply(final double[] a, final double[] b, final double[] c, final int m, final int k, final int n, BlockExecutor executor) {
+		executor.forEach(blocks(m), new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				for(int i = lo * ROW_BLOCK; i < Math.min(m, hi * ROW_BLOCK); i++) {
+					int ci = i * n;
+
+					for(int j = 0; j < n; j++) {
+						c[ci + j] = 0.0;
+					}
+
+					for(int p = 0; p < k; p++) {
+						double aip = a[i * k + p];
+						int bp = p * n;
+
+						for(int j = 0; j < n; j++) {
+							c[ci + j] += aip * b[bp + j];
+						}
+					}
+				}
+			}
+		});
+	}
+
+	static void multiplyTransposeB(double[] a, double[] b, double[] c, int m, int k, int n) {
+		multiplyTransposeB(a, b, c, m, k, n, BlockExecutor.SEQUENTIAL);
+	}
+
+	/**
+	 * Computes C = A * B^T for A (m x k) and B (n x k), C (m x n) is overwritten.
+	 * Rows of B are processed in tiles that stay in cache for all rows of a block.
+	 */
+	static void multiplyTransposeB(final double[] a, final double[] b, final double[] c, final int m, final int k, final int n, BlockExecutor executor) {
+		executor.forEach(blocks(m), new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				int end = Math.min(m, hi * ROW_BLOCK);
+
+				for(int tile = 0; tile < n; tile += COLUMN_TILE) {
+					int tileEnd = Math.min(n, tile + COLUMN_TILE);
+
+					for(int i = lo * ROW_BLOCK; i < end; i++) {
+						int ai = i * k;
+						int ci = i * n;
+
+						for(int j = tile; j < tileEnd; j++) {
+							int bj = j * k;
+							double sum = 0.0;
+
+							for(int p = 0; p < k; p++) {
+								sum += a[ai + p] * b[bj + p];
+							}
+
+							c[ci + j] = sum;
+						}
+					}
+				}
+			}
+		});
+	}
+
+	static void multiplyTransposeA(double[] a, double[] b, double[] c, int k, int m, int n) {
+		multiplyTransposeA(a, b, c, k, m, n, BlockExecutor.SEQUENTIAL);
+	}
+
+	/**
+	 * Computes C = A^T * B for A (k x m) and B (k x n), C (m x n) is overwritten.
+	 */
+	static void multiplyTransposeA(final double[] a, final double[] b, final double[] c, final int k, final int m, final int n, BlockExecutor executor) {
+		executor.forEach(blocks(m), new BlockExecutor.Body() {
+			public void run(int lo, int hi) {
+				int start = lo * ROW_BLOCK;
+				int end = Math.min(m, hi * ROW_BLOCK);
+
+				for(int i = start * n; i < end * n; i++) {
+					c[i] = 0.0;
+				}
+
+				for(int p = 0; p < k; p++) {
+					int ap = p * m;
+					int bp = p * n;
+
+					for(int i = start; i < end; i++) {
+						double api = a[ap + i];
+						int ci = i * n;
+
+						for(int j = 0; j < n; j++) {
+							c[ci + j] += api * b[bp + j];
+						}
+					}
+				}
+			}
+		});
+	}
+
+	private static int blocks(int rows) {
+		return (rows + ROW_BLOCK - 1) / ROW_BLOCK;
+	}
+
+	/**
+	 * Orthonormalizes the columns of the m x l matrix Y in place with two passes of modified
+	 * Gram-Schmidt. Columns that are (numerically) linear combinations of the previous ones are set to zero.
+	 */
+	static void orthonormalizeColumns(double[] y, int m, int l) {
+		for(int c = 0; c < l; c++) {
+			double norm = columnNorm(y, m, l, c);
+
+			for(int pass = 0; pass < 2; pass++) {
+				for(int p = 0; p < c; p++) {
+					double dot = 0.0;
+					for(int i = 0; i < m; i++) {
+						dot += y[i * l + p] * y[i * l + c];
+					}
+
+					for(int i = 0; i < m; i++) {
+						y[i * l + c] -= dot * y[i * l + p];
+					}
+				}
+			}
+
+			double remaining = columnNorm(y, m, l, c);
+			double scale = remaining > 1e-12 * norm && remaining > 0.0 ? 1.0 / remaining : 0.0;
+
+			for(int i = 0; i < m; i++) {
+				y[i * l + c] *= scale;
+			}
+		}
+	}
+
+	private static double columnNorm(double[] y, int m, int l, int c) {
+		double sum = 0.0;
+
+		for(int i = 0; i < m; i++) {
+			sum += y[i * l + c] * y[i * l + c];
+		}
+
+		return Math.sqrt(sum);
+	}
+}
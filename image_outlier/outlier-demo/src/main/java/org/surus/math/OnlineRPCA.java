@@ -0,0 +1,321 @@
+package org.surus.math;
+
+import java.util.Random;
+
+/**
+ * Online robust PCA via stochastic optimization (Feng, Xu, Yan: "Online Robust PCA via
+ * Stochastic Optimization", NIPS 2013).
+ *
+ * Samples (e.g. one period of a time series) arrive one at a time. Each sample z is split into
+ * a low rank part U * v, a sparse part s and noise by minimizing
+ * 0.5 * ||z - U v - s||^2 + lambda1 / 2 * ||v||^2 + lambda2 * ||s||_1 for the current basis U.
+ * The basis is then updated from the accumulated statistics A = sum v v^T and B = sum (z - s) v^T
+ * by one pass of block coordinate descent. Memory and time per sample are O(m * rank^2) for
+ * samples of dimension m, independent of the number of samples seen.
+ *
+ * For scalar series {@link #addObservation(double)} uses the window of the last m observations
+ * as the sample, the sparse part of its last entry is the outlier component of the newest point.
+ * This class is not thread safe, buffers returned by the getters are overwritten by the next update.
+ */
+public class OnlineRPCA {
+
+	private static final int MAX_INNER_ITERS = 100;
+	private static final double INNER_TOL = 1e-8;
+
+	private final int dimension;
+	private final int rank;
+	private final double lambda1;
+	private final double lambda2;
+
+	private final double[] u;    // basis, dimension x rank
+	private final double[] a;    // sum v v^T, rank x rank
+	private final double[] b;    // sum (z - s) v^T, dimension x rank
+
+	private final double[] v;
+	private final double[] sparse;
+	private final double[] lowRank;
+	private final double[] residual;
+	private final double[] gram; // U^T U + lambda1 I and its Cholesky factor
+	private final double[] rhs;
+
+	private double forgettingFactor = 1.0;
+
+	private final double[] window;
+	private int observations;
+	private long samples;
+
+	/**
+	 * Uses lambda1 = lambda2 = 1 / sqrt(dimension), suitable for samples with entries of order 1.
+	 */
+	public OnlineRPCA(int dimension, int rank) {
+		this(dimension, rank, 1.0 / Math.sqrt(dimension), 1.0 / Math.sqrt(dimension), 0);
+	}
+
+	/**
+	 * @param dimension size m of the samples
+	 * @param rank dimension of the low rank subspace
+	 * @param lambda1 penalty of the low rank coefficients and the basis
+	 * @param lambda2 penalty of the sparse component, the soft threshold in the units of the data
+	 * @param seed seed of the random initial basis
+	 */
+	public OnlineRPCA(int dimension, int rank, double lambda1, double lambda2, long seed) {
+		if(rank < 1 || rank > dimension) {
+			throw new IllegalArgumentException("rank " + rank + " is not valid for samples of dimension " + dimension);
+		}
+
+		this.dimension = dimension;
+		this.rank = rank;
+		this.lambda1 = lambda1;
+		this.lambda2 = lambda2;
+
+		u = new double[dimension * rank];
+		a = new double[rank * rank];
+		b = new double[dimension * rank];
+		v = new double[rank];
+		sparse = new double[dimension];
+		lowRank = new double[dimension];
+		residual = new double[dimension];
+		gram = new double[rank * rank];
+		rhs = new double[rank];
+		window = new double[dimension];
+
+		Random random = new Random(seed);
+		for(int i = 0; i < u.length; i++) {
+			u[i] = random.nextGaussian() / Math.sqrt(dimension);
+		}
+	}
+
+	/**
+	 * Sets the weight of the statistics of past samples per new sample (default: 1, no forgetting).
+	 * Values below 1 (e.g. 0.99) let the basis follow a drifting subspace and forget
+	 * the poor fits of the first samples faster.
+	 */
+	public void setForgettingFactor(double forgettingFactor) {
+		if(forgettingFactor <= 0 || forgettingFactor > 1) {
+			throw new IllegalArgumentException("forgetting factor " + forgettingFactor + " is not in (0, 1]");
+		}
+
+		this.forgettingFactor = forgettingFactor;
+	}
+
+	/**
+	 * Decomposes the sample with the current basis and updates the basis.
+	 */
+	public void update(double[] z) {
+		if(z.length != dimension) {
+			throw new IllegalArgumentException("sample has dimension " + z.length + ", expected " + dimension);
+		}
+
+		project(z);
+
+		// accumulate statistics
+		for(int j = 0; j < rank; j++) {
+			for(int k = 0; k < rank; k++) {
+				a[j * rank + k] = forgettingFactor * a[j * rank + k] + v[j] * v[k];
+			}
+		}
+
+		for(int i = 0; i < dimension; i++) {
+			double clean = z[i] - sparse[i];
+			for(int j = 0; j < rank; j++) {
+				b[i * rank + j] = forgettingFactor * b[i * rank + j] + clean * v[j];
+			}
+		}
+
+		updateBasis();
+		samples++;
+	}
+
+	/**
+	 * Appends an observation of a scalar series and updates the model with the window of
+	 * the last m observations once m observations have been seen.
+	 * @return sparse (outlier) component of the observation, NaN while the window is not filled
+	 */
+	public double addObservation(double value) {
+		if(observations < dimension) {
+			window[observations++] = value;
+
+			if(observations < dimension) {
+				return Double.NaN;
+			}
+		}
+		else {
+			System.arraycopy(window, 1, window, 0, dimension - 1);
+			window[dimension - 1] = value;
+		}
+
+		update(window);
+		return sparse[dimension - 1];
+	}
+
+	/**
+	 * Solves for the coefficients v and the sparse part s of the sample by alternating minimization.
+	 */
+	private void project(double[] z) {
+		// Cholesky factor of U^T U + lambda1 I
+		for(int j = 0; j < rank; j++) {
+			for(int k = 0; k <= j; k++) {
+				double dot = 0;
+				for(int i = 0; i < dimension; i++) {
+					dot += u[i * rank + j] * u[i * rank + k];
+				}
+				gram[j * rank + k] = dot + (j == k ? lambda1 : 0);
+			}
+		}
+
+		cholesky(gram, rank);
+
+		for(int i = 0; i < dimension; i++) {
+			sparse[i] = 0;
+		}
+
+		for(int iter = 0; iter < MAX_INNER_ITERS; iter++) {
+			// v = (U^T U + lambda1 I)^-1 U^T (z - s)
+			for(int j = 0; j < rank; j++) {
+				double dot = 0;
+				for(int i = 0; i < dimension; i++) {
+					dot += u[i * rank + j] * (z[i] - sparse[i]);
+				}
+				rhs[j] = dot;
+			}
+
+			solve(gram, rank, rhs, v);
+
+			// s = softThreshold(z - U v)
+			double change = 0;
+			double norm = 0;
+
+			for(int i = 0; i < dimension; i++) {
+				double projected = 0;
+				for(int j = 0; j < rank; j++) {
+					projected += u[i * rank + j] * v[j];
+				}
+
+				double r = z[i] - projected;
+				double s = Math.signum(r) * Math.max(Math.abs(r) - lambda2, 0);
+
+				change += (s - sparse[i]) * (s - sparse[i]);
+				norm += z[i] * z[i];
+				sparse[i] = s;
+				lowRank[i] = projected;
+				residual[i] = r - s;
+			}
+
+			if(change <= INNER_TOL * Math.max(norm, 1e-300)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Updates the columns of the basis by block coordinate descent: U_j += (B_j - U A_j) / A_jj
+	 * with A = sum v v^T + lambda1 I.
+	 */
+	private void updateBasis() {
+		for(int j = 0; j < rank; j++) {
+			double ajj = a[j * rank + j] + lambda1;
+
+			for(int i = 0; i < dimension; i++) {
+				double dot = lambda1 * u[i * rank + j];
+				for(int k = 0; k < rank; k++) {
+					dot += u[i * rank + k] * a[k * rank + j];
+				}
+
+				u[i * rank + j] += (b[i * rank + j] - dot) / ajj;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the lower triangle of the symmetric positive definite n x n matrix by its Cholesky factor.
+	 */
+	private static void cholesky(double[] m, int n) {
+		for(int j = 0; j < n; j++) {
+			double d = m[j * n + j];
+			for(int k = 0; k < j; k++) {
+				d -= m[j * n + k] * m[j * n + k];
+			}
+			d = Math.sqrt(d);
+			m[j * n + j] = d;
+
+			for(int i = j + 1; i < n; i++) {
+				double sum = m[i * n + j];
+				for(int k = 0; k < j; k++) {
+					sum -= m[i * n + k] * m[j * n + k];
+				}
+				m[i * n + j] = sum / d;
+			}
+		}
+	}
+
+	/**
+	 * Solves L L^T x = y for the Cholesky factor L in the lower triangle of m.
+	 */
+	private static void solve(double[] m, int n, double[] y, double[] x) {
+		for(int i = 0; i < n; i++) {
+			double sum = y[i];
+			for(int k = 0; k < i; k++) {
+				sum -= m[i * n + k] * x[k];
+			}
+			x[i] = sum / m[i * n + i];
+		}
+
+		for(int i = n - 1; i >= 0; i--) {
+			double sum = x[i];
+			for(int k = i + 1; k < n; k++) {
+				sum -= m[k * n + i] * x[k];
+			}
+			x[i] = sum / m[i * n + i];
+		}
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return number of samples processed so far
+	 */
+	public long getSamples() {
+		return samples;
+	}
+
+	/**
+	 * @return sparse component of the last sample
+	 */
+	public double[] getSparse() {
+		return sparse;
+	}
+
+	/**
+	 * @return low rank component U * v of the last sample
+	 */
+	public double[] getLowRank() {
+		return lowRank;
+	}
+
+	/**
+	 * @return noise z - U * v - s of the last sample
+	 */
+	public double[] getNoise() {
+		return residual;
+	}
+
+	/**
+	 * @return coefficients v of the last sample in the current basis
+	 */
+	public double[] getCoefficients() {
+		return v;
+	}
+
+	/**
+	 * @return entry (i, j) of the current basis
+	 */
+	public double getBasis(int i, int j) {
+		return u[i * rank + j];
+	}
+}
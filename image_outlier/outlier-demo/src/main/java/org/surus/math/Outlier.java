@@ -0,0 +1,34 @@
+package org.surus.math;
+
+/**
+ * Entry (row, col) of a sparse component with its value.
+ */
+public class Outlier {
+
+	private final int row;
+	private final int col;
+	private final double value;
+
+	public Outlier(int row, int col, double value) {
+		this.row = row;
+		this.col = col;
+		this.value = value;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public int getCol() {
+		return col;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + row + ", " + col + ") " + value;
+	}
+}
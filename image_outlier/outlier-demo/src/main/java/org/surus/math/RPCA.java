@@ -1,156 +1,551 @@
 package org.surus.math;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.SingularValueDecomposition;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 /**
  * RPCA class copied from {@linktourl https://github.com/Netflix/Surus}.
+ * The singular value decomposition of the low rank update is delegated to a {@link SvdStrategy}.
+ *
+ * X, L and E are kept in preallocated row-major double[] buffers, the mostly zero S only as
+ * lists of its non-zero entries (see {@link #getSparseS()} and {@link #getOutliers(double)}).
+ * Each iteration makes two passes over the entries besides the SVD: one computes S, its L1 norm
+ * and the SVD input X - S, the other computes E = (X - S) - L with its squared Frobenius norm and
+ * a streaming (Welford) variance. Apart from the SVD strategy and growing the lists of S
+ * an iteration allocates no memory.
+ *
+ * The passes work on fixed blocks of rows whose partial sums are combined in block order,
+ * which allows to run them (and the reconstruction of L) on several threads
+ * (see {@link RpcaOptions#setParallelism(int)}). Results are identical for any number of threads.
+ * The stopping criteria are configurable and a listener can follow the iterations (see {@link RpcaOptions}),
+ * {@link #getStatistics()} summarizes the decomposition.
+ *
+ * A decomposition can start from the L and mu of a previous one ({@link RpcaOptions#setWarmStart(RPCA)}),
+ * which saves most iterations when the data changed only slightly, e.g. on rolling windows.
+ *
+ * Compared to the original Surus implementation results differ by rounding only,
+ * RPCA_Test checks them against the Surus reference values with a tolerance of 1e-4.
  */
 public class RPCA {
 
-	private RealMatrix X;
+	/** minimal number of entries per block of the elementwise passes */
+	private static final int BLOCK_ENTRIES = 4096;
+
+	private final int rows;
+	private final int cols;
+
+	private final double[] x;
+	private final double[] l;
+	private final SparseBlocks sparse; // S
+	private final double[] e;
+	private final double[] work; // SVD input X - S
+
+	private double lpenalty;
+	private double spenalty;
+
+	private SvdStrategy svdStrategy;
+	private final BlockExecutor executor;
+	private int rank = -1;
+	private double eVariance;
+	private double mu;
+	private int iterations;
+
+	private final double tolerance;
+	private final double changeTolerance;
+	private final int maxIterations;
+	private final long timeBudgetNanos;
+	private final RpcaListener listener;
+	private RpcaStatistics statistics;
+
+	// row blocks of the elementwise passes and their partial results
+	private final int blockRows;
+	private final int blocks;
+	private final double[] partialSum;
+	private final double[] partialSquares;
+	private final double[] partialMean;
+	private final double[] partialM2;
+	private final double[] partialChange;
+	private final double[] partialNorm;
+	private final double[] partialNonZero;
+	private double penalty;
+	private double nonZero;
+
 	private RealMatrix L;
 	private RealMatrix S;
 	private RealMatrix E;
-	
-	private double lpenalty;
-	private double spenalty;
-	
-	private static final int MAX_ITERS = 228;
-	
+	private SparseMatrix sparseS;
+
 	public RPCA(double[][] data, double lpenalty, double spenalty) {
-		this.X = MatrixUtils.createRealMatrix(data);
-		this.lpenalty = lpenalty;
-		this.spenalty = spenalty;
-		initMatrices();
-		computeRSVD();
+		this(data, lpenalty, spenalty, new RpcaOptions());
 	}
-	
+
 	public RPCA(RealMatrix X, double lpenalty, double spenalty) {
-		this.X = X;
+		this(X.getData(), lpenalty, spenalty, new RpcaOptions());
+	}
+
+	public RPCA(RealMatrix X, double lpenalty, double spenalty, SvdStrategy svdStrategy) {
+		this(X.getData(), lpenalty, spenalty, svdStrategy);
+	}
+
+	/**
+	 * @param svdStrategy computes the singular value decomposition in each iteration, e.g. {@link RandomizedSvd} for large matrices
+	 */
+	public RPCA(double[][] data, double lpenalty, double spenalty, SvdStrategy svdStrategy) {
+		this(data, lpenalty, spenalty, options(svdStrategy));
+	}
+
+	public RPCA(RealMatrix X, double lpenalty, double spenalty, RpcaOptions options) {
+		this(X.getData(), lpenalty, spenalty, options);
+	}
+
+	public RPCA(double[][] data, double lpenalty, double spenalty, RpcaOptions options) {
+		this(data, lpenalty, spenalty, options, null, null);
+	}
+
+	/**
+	 * @param workspace buffers reused from an earlier decomposition, null to allocate new ones.
+	 * L, S and E are only valid until the workspace is used again.
+	 * @param executor runs the block loops, null to create one for the parallelism of the options
+	 */
+	RPCA(double[][] data, double lpenalty, double spenalty, RpcaOptions options, RpcaWorkspace workspace, BlockExecutor executor) {
+		this.rows = data.length;
+		this.cols = data[0].length;
 		this.lpenalty = lpenalty;
 		this.spenalty = spenalty;
-		initMatrices();
-		computeRSVD();
+		this.svdStrategy = options.getSvdStrategy();
+		this.tolerance = options.getTolerance();
+		this.changeTolerance = options.getChangeTolerance();
+		this.maxIterations = options.getMaxIterations();
+		this.timeBudgetNanos = options.getTimeBudgetMillis() * 1000000L;
+		this.listener = options.getListener();
+
+		blockRows = Math.max(1, BLOCK_ENTRIES / cols);
+		blocks = (rows + blockRows - 1) / blockRows;
+
+		if(workspace == null) {
+			workspace = new RpcaWorkspace();
+		}
+		workspace.ensureCapacity(rows * cols, blocks);
+
+		x = workspace.x;
+		l = workspace.l;
+		sparse = workspace.sparse;
+		e = workspace.e;
+		work = workspace.work;
+		partialSum = workspace.partialSum;
+		partialSquares = workspace.partialSquares;
+		partialMean = workspace.partialMean;
+		partialM2 = workspace.partialM2;
+		partialChange = workspace.partialChange;
+		partialNorm = workspace.partialNorm;
+		partialNonZero = workspace.partialNonZero;
+
+		for(int i = 0; i < rows; i++) {
+			if(data[i].length != cols) {
+				throw new IllegalArgumentException("row " + i + " has " + data[i].length + " columns, expected " + cols);
+			}
+			System.arraycopy(data[i], 0, x, i * cols, cols);
+		}
+
+		// a reused workspace holds the previous decomposition
+		sparse.clear(blocks);
+
+		double[][] warmStartL = options.getWarmStartL();
+		if(warmStartL != null) {
+			if(warmStartL.length != rows || warmStartL[0].length != cols) {
+				throw new IllegalArgumentException("warm start L is " + warmStartL.length + " x " + warmStartL[0].length
+						+ ", expected " + rows + " x " + cols);
+			}
+
+			for(int i = 0; i < rows; i++) {
+				System.arraycopy(warmStartL[i], 0, l, i * cols, cols);
+			}
+
+			mu = options.getWarmStartMu();
+			rank = options.getWarmStartRank();
+		}
+		else {
+			Arrays.fill(l, 0, rows * cols, 0.0);
+		}
+
+		if(executor != null) {
+			this.executor = executor;
+			computeRSVD();
+			return;
+		}
+
+		this.executor = options.getParallelism() > 1 ? new BlockExecutor(options.getParallelism()) : BlockExecutor.SEQUENTIAL;
+
+		try {
+			computeRSVD();
+		}
+		finally {
+			this.executor.shutdown();
+		}
 	}
-	
-	private void initMatrices() {
-		this.L = MatrixUtils.createRealMatrix(this.X.getRowDimension(), this.X.getColumnDimension());
-		this.S = MatrixUtils.createRealMatrix(this.X.getRowDimension(), this.X.getColumnDimension());
-		this.E = MatrixUtils.createRealMatrix(this.X.getRowDimension(), this.X.getColumnDimension());
+
+	private static RpcaOptions options(SvdStrategy svdStrategy) {
+		RpcaOptions options = new RpcaOptions();
+		options.setSvdStrategy(svdStrategy);
+		return options;
 	}
-	
+
 	private void computeRSVD() {
-		double mu = X.getColumnDimension() * X.getRowDimension() / (4 * l1norm(X.getData()));
-		double objPrev = 0.5*Math.pow(X.getFrobeniusNorm(), 2);
+		long start = System.nanoTime();
+		executor.forEach(blocks, normsBody);
+		double l1 = sum(partialSum);
+		double sumSquares = sum(partialSquares);
+
+		if(mu == 0) {
+			mu = cols * rows / (4 * l1);
+		}
+
+		double objPrev = 0.5 * sumSquares;
 		double obj = objPrev;
-		double tol = 1e-8 * objPrev;
-		double diff = 2 * tol;
-		int iter = 0;
-		
-		while(diff > tol && iter < MAX_ITERS) {
+		double tol = tolerance * objPrev;
+		long svdNanos = 0;
+		long elementwiseNanos = 0;
+		RpcaStatistics.Stop stop = null;
+
+		while(stop == null) {
+			long iterationStart = System.nanoTime();
 			double nuclearNorm = computeS(mu);
+			double sChange = relativeChange();
+			long svdStart = System.nanoTime();
 			double l1Norm = computeL(mu);
+			long svdEnd = System.nanoTime();
 			double l2Norm = computeE();
-			
+			double lChange = relativeChange();
+			long iterationEnd = System.nanoTime();
+
 			obj = computeObjective(nuclearNorm, l1Norm, l2Norm);
-			diff = Math.abs(objPrev - obj);
+			double diff = Math.abs(objPrev - obj);
 			objPrev = obj;
-			
+
+			double iterationMu = mu;
 			mu = computeDynamicMu();
-			
-			iter = iter + 1;
+
+			iterations++;
+			svdNanos += svdEnd - svdStart;
+			elementwiseNanos += (svdStart - iterationStart) + (iterationEnd - svdEnd);
+
+			if(listener != null) {
+				listener.iterationDone(new RpcaIteration(iterations, obj, diff, iterationMu, rank, lChange, sChange,
+						svdEnd - svdStart, (svdStart - iterationStart) + (iterationEnd - svdEnd)));
+			}
+
+			if(diff <= tol) {
+				stop = RpcaStatistics.Stop.OBJECTIVE;
+			}
+			else if(lChange < changeTolerance && sChange < changeTolerance) {
+				stop = RpcaStatistics.Stop.CHANGE;
+			}
+			else if(iterations >= maxIterations) {
+				stop = RpcaStatistics.Stop.MAX_ITERATIONS;
+			}
+			else if(timeBudgetNanos > 0 && System.nanoTime() - start > timeBudgetNanos) {
+				stop = RpcaStatistics.Stop.TIME_BUDGET;
+			}
 		}
+
+		statistics = new RpcaStatistics(iterations, stop, obj, rank, nonZero / (rows * cols),
+				svdNanos, elementwiseNanos, System.nanoTime() - start);
 	}
-		
-	private double[] softThreshold(double[] x, double penalty) {
-		for(int i = 0; i < x.length; i++) {
-			x[i] = Math.signum(x[i]) * Math.max(Math.abs(x[i]) - penalty, 0);
-		}
-		return x;
+
+	/**
+	 * @return relative change ||new - previous|| / ||new|| from the partial sums of the last pass
+	 */
+	private double relativeChange() {
+		double change = sum(partialChange);
+		double norm = sum(partialNorm);
+
+		return norm > 0 ? Math.sqrt(change / norm) : (change > 0 ? Double.POSITIVE_INFINITY : 0);
 	}
-	
-	private double[][] softThreshold(double[][] x, double penalty) {
-		for(int i = 0; i < x.length; i++) {
-			for(int j = 0; j < x[i].length; j++) {
-				x[i][j] = Math.signum(x[i][j]) * Math.max(Math.abs(x[i][j]) - penalty, 0);
-			}
-		}
-		return x;
+
+	private static double softThreshold(double x, double penalty) {
+		return Math.signum(x) * Math.max(Math.abs(x) - penalty, 0);
 	}
-	
-	private double sum(double[] x) {
+
+	private double sum(double[] partials) {
 		double sum = 0;
-		for (int i = 0; i < x.length; i++)
-			sum += x[i];
-		return (sum);
-	}
-	
-	private double l1norm(double[][] x) {
-		double l1norm = 0;
-		for (int i = 0; i < x.length; i++) {
-			for (int j = 0; j < x[i].length; j++) {
-				l1norm += Math.abs(x[i][j]);
-			}
+		for(int b = 0; b < blocks; b++) {
+			sum += partials[b];
 		}
-		return l1norm;
+		return sum;
 	}
-	
+
+	private int start(int block) {
+		return block * blockRows * cols;
+	}
+
+	private int end(int block) {
+		return Math.min(rows, (block + 1) * blockRows) * cols;
+	}
+
+	/**
+	 * Computes L = U * (D - penalty) * V^T from the singular triplets above the penalty.
+	 */
 	private double computeL(double mu) {
 		double LPenalty = lpenalty * mu;
-		SingularValueDecomposition svd = new SingularValueDecomposition(X.subtract(S));
-		double[] penalizedD = softThreshold(svd.getSingularValues(), LPenalty);
-		RealMatrix D_matrix = MatrixUtils.createRealDiagonalMatrix(penalizedD);
-		L = svd.getU().multiply(D_matrix).multiply(svd.getVT());
-		return sum(penalizedD) * LPenalty;
+
+		// only singular values above the penalty survive soft-thresholding
+		SingularTriplets svd = svdStrategy.decompose(work, rows, cols, LPenalty, rank, executor);
+		rank = svd.getRank();
+
+		double[] u = svd.getU();
+		double penalizedSum = 0;
+
+		for(int r = 0; r < rank; r++) {
+			double d = svd.getSingularValue(r) - LPenalty;
+			penalizedSum += d;
+
+			for(int i = 0; i < rows; i++) {
+				u[i * rank + r] *= d;
+			}
+		}
+
+		MatrixKernels.multiplyTransposeB(u, svd.getV(), l, rows, rank, cols, executor);
+
+		return penalizedSum * LPenalty;
 	}
-	
+
+	/**
+	 * Computes S = softThreshold(X - L) and the SVD input X - S in one pass.
+	 * E temporarily holds X - L_prev - S, from which the E pass derives the change of L.
+	 */
 	private double computeS(double mu) {
-		double SPenalty = spenalty * mu;
-		double[][] penalizedS = softThreshold(X.subtract(L).getData(), SPenalty);
-		S = MatrixUtils.createRealMatrix(penalizedS);
-		return l1norm(penalizedS) * SPenalty;
+		penalty = spenalty * mu;
+		executor.forEach(blocks, sBody);
+		nonZero = sum(partialNonZero);
+		return sum(partialSum) * penalty;
 	}
-	
+
+	/**
+	 * Computes E = X - L - S, its squared Frobenius norm and the variance of its entries in one pass.
+	 */
 	private double computeE() {
-		E = X.subtract(L).subtract(S);
-		double norm = E.getFrobeniusNorm();
-		return Math.pow(norm, 2);
+		executor.forEach(blocks, eBody);
+
+		// combine the block variances (Chan et al.)
+		double count = 0;
+		double mean = 0;
+		double m2 = 0;
+
+		for(int b = 0; b < blocks; b++) {
+			double blockCount = end(b) - start(b);
+			double delta = partialMean[b] - mean;
+			double total = count + blockCount;
+
+			m2 += partialM2[b] + delta * delta * count * blockCount / total;
+			mean += delta * blockCount / total;
+			count = total;
+		}
+
+		int entries = rows * cols;
+		eVariance = entries > 1 ? m2 / (entries - 1) : 0;
+
+		return sum(partialSquares);
 	}
-	
+
+	private final BlockExecutor.Body normsBody = new BlockExecutor.Body() {
+		public void run(int lo, int hi) {
+			for(int b = lo; b < hi; b++) {
+				double l1 = 0;
+				double sumSquares = 0;
+
+				for(int i = start(b); i < end(b); i++) {
+					l1 += Math.abs(x[i]);
+					sumSquares += x[i] * x[i];
+				}
+
+				partialSum[b] = l1;
+				partialSquares[b] = sumSquares;
+			}
+		}
+	};
+
+	private final BlockExecutor.Body sBody = new BlockExecutor.Body() {
+		public void run(int lo, int hi) {
+			for(int b = lo; b < hi; b++) {
+				double l1norm = 0;
+				double change = 0;
+				double norm = 0;
+				int nonZero = 0;
+
+				sparse.swap(b);
+				int[] previousIndex = sparse.previousIndex[b];
+				double[] previousValue = sparse.previousValue[b];
+				int previousCount = sparse.previousCount[b];
+				int p = 0;
+
+				for(int i = start(b); i < end(b); i++) {
+					double penalized = softThreshold(x[i] - l[i], penalty);
+
+					double previous = 0;
+					if(p < previousCount && previousIndex[p] == i) {
+						previous = previousValue[p++];
+					}
+
+					double delta = penalized - previous;
+					change += delta * delta;
+					norm += penalized * penalized;
+					if(penalized != 0) {
+						sparse.add(b, i, penalized);
+						nonZero++;
+					}
+
+					work[i] = x[i] - penalized;
+					e[i] = work[i] - l[i];
+					l1norm += Math.abs(penalized);
+				}
+
+				partialSum[b] = l1norm;
+				partialChange[b] = change;
+				partialNorm[b] = norm;
+				partialNonZero[b] = nonZero;
+			}
+		}
+	};
+
+	private final BlockExecutor.Body eBody = new BlockExecutor.Body() {
+		public void run(int lo, int hi) {
+			for(int b = lo; b < hi; b++) {
+				double sumSquares = 0;
+				double mean = 0;
+				double m2 = 0;
+				double change = 0;
+				double norm = 0;
+				int count = 0;
+
+				for(int i = start(b); i < end(b); i++) {
+					double value = work[i] - l[i]; // X - S - L
+					double lDelta = e[i] - value; // L - L_prev
+					change += lDelta * lDelta;
+					norm += l[i] * l[i];
+
+					e[i] = value;
+					sumSquares += value * value;
+
+					double delta = value - mean;
+					mean += delta / ++count;
+					m2 += delta * (value - mean);
+				}
+
+				partialSquares[b] = sumSquares;
+				partialMean[b] = mean;
+				partialM2[b] = m2;
+				partialChange[b] = change;
+				partialNorm[b] = norm;
+			}
+		}
+	};
+
 	private double computeObjective(double nuclearnorm, double l1norm, double l2norm) {
 		return 0.5*l2norm + nuclearnorm + l1norm;
 	}
-	
+
 	private double computeDynamicMu() {
-		int m = E.getRowDimension();
-		int n = E.getColumnDimension();
-		
-		double E_sd = standardDeviation(E.getData());
-		double mu = E_sd * Math.sqrt(2*Math.max(m,n));
-		
+		double E_sd = Math.sqrt(eVariance);
+		double mu = E_sd * Math.sqrt(2*Math.max(rows,cols));
+
 		return Math.max(.01, mu);
 	}
-	
-	private double standardDeviation(double[][] x) {
-		DescriptiveStatistics stats = new DescriptiveStatistics();
-		for (int i = 0; i < x.length; i ++)
-			for (int j = 0; j < x[i].length; j++)
-				stats.addValue(x[i][j]);
-		return stats.getStandardDeviation();
+
+	private double[][] toArray(double[] data) {
+		double[][] matrix = new double[rows][cols];
+
+		for(int i = 0; i < rows; i++) {
+			System.arraycopy(data, i * cols, matrix[i], 0, cols);
+		}
+
+		return matrix;
+	}
+
+	private RealMatrix toMatrix(double[] data) {
+		return MatrixUtils.createRealMatrix(toArray(data));
+	}
+
+	double[][] copyL() {
+		return toArray(l);
+	}
+
+	/**
+	 * @return S in compressed sparse row format
+	 */
+	public SparseMatrix getSparseS() {
+		if(sparseS == null) {
+			sparseS = sparse.toMatrix(blocks, rows, cols);
+		}
+		return sparseS;
+	}
+
+	/**
+	 * @return the entries of S whose absolute value exceeds the threshold in row-major order
+	 */
+	public List<Outlier> getOutliers(double threshold) {
+		return getSparseS().getOutliers(threshold);
+	}
+
+	double[][] copyE() {
+		return toArray(e);
+	}
+
+	/**
+	 * @return true for the entries whose sparse component exceeds the threshold in absolute value
+	 */
+	public boolean[][] getOutlierMask(double threshold) {
+		return getSparseS().getMask(threshold);
+	}
+
+	/**
+	 * @return iteration count, timings and final state of the decomposition
+	 */
+	public RpcaStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return number of iterations until convergence
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return mu for the next iteration, the starting point of a warm started decomposition
+	 */
+	public double getMu() {
+		return mu;
+	}
+
+	/**
+	 * @return rank of L
+	 */
+	public int getRank() {
+		return rank;
 	}
 
 	public RealMatrix getL() {
+		if(L == null) {
+			L = toMatrix(l);
+		}
 		return L;
 	}
 
 	public RealMatrix getS() {
+		if(S == null) {
+			S = MatrixUtils.createRealMatrix(getSparseS().toArray());
+		}
 		return S;
 	}
 
 	public RealMatrix getE() {
+		if(E == null) {
+			E = toMatrix(e);
+		}
 		return E;
 	}
-}
\ No newline at end of file
+}
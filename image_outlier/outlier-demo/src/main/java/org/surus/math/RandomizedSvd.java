@@ -0,0 +1,109 @@
+package org.surus.math;
+
+import java.util.Random;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+/**
+ * Randomized truncated SVD (Halko, Martinsson, Tropp: "Finding structure with randomness", 2011).
+ *
+ * A Gaussian sketch A * Omega with rank + oversampling columns, refined by power iterations,
+ * spans the dominant column space of A. The SVD of the small projection Q^T * A then yields
+ * the leading singular triplets. The sketch size starts at the rank hint, RPCA passes the rank
+ * of the previous iteration, and grows until the sketch contains all singular values above the
+ * threshold with the full oversampling margin. When the sketch would cover more than half of
+ * min(rows, cols) the full SVD is used instead.
+ *
+ * Decompositions are deterministic for a given seed and do not depend on the parallelism.
+ * The matrix products run on the executor of the caller, in {@link RPCA} on its threads
+ * (see {@link RpcaOptions#setParallelism(int)}).
+ * Costs are O(rows * cols * l) per power iteration for a sketch of l columns instead of
+ * O(rows * cols * min(rows, cols)).
+ */
+public class RandomizedSvd implements SvdStrategy {
+
+	public static final int DEFAULT_OVERSAMPLING = 10;
+	public static final int DEFAULT_POWER_ITERATIONS = 4;
+	public static final int DEFAULT_INITIAL_RANK = 10;
+
+	private final int oversampling;
+	private final int powerIterations;
+	private final long seed;
+	private final SvdStrategy fallback = new FullSvd();
+
+	public RandomizedSvd() {
+		this(DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, 0);
+	}
+
+	/**
+	 * @param oversampling number of sketch columns beyond the expected rank
+	 * @param powerIterations number of multiplications with A * A^T to sharpen the spectrum
+	 * @param seed seed of the Gaussian sketches
+	 */
+	public RandomizedSvd(int oversampling, int powerIterations, long seed) {
+		this.oversampling = Math.max(1, oversampling);
+		this.powerIterations = Math.max(0, powerIterations);
+		this.seed = seed;
+	}
+
+	public SingularTriplets decompose(double[] a, int rows, int cols, double threshold, int rankHint, BlockExecutor executor) {
+		int p = Math.min(rows, cols);
+		int l = (rankHint >= 0 ? rankHint : DEFAULT_INITIAL_RANK) + oversampling;
+		Random random = new Random(seed);
+
+		while(2 * l <= p) {
+			SingularTriplets triplets = sketch(a, rows, cols, l, threshold, random, executor);
+
+			if(triplets.getRank() + oversampling <= l) {
+				return triplets;
+			}
+
+			l = 2 * triplets.getRank() + oversampling;
+		}
+
+		return fallback.decompose(a, rows, cols, threshold, rankHint, executor);
+	}
+
+	/**
+	 * @return the triplets above the threshold of a rank l approximation of A
+	 */
+	private SingularTriplets sketch(double[] a, int rows, int cols, int l, double threshold, Random random, BlockExecutor executor) {
+		double[] omega = new double[cols * l];
+		double[] y = new double[rows * l];
+		double[] z = new double[cols * l];
+
+		for(int i = 0; i < omega.length; i++) {
+			omega[i] = random.nextGaussian();
+		}
+
+		// Y = orth(A * Omega), refined by Y = orth(A * orth(A^T * Y))
+		MatrixKernels.multiply(a, omega, y, rows, cols, l, executor);
+		MatrixKernels.orthonormalizeColumns(y, rows, l);
+
+		for(int q = 0; q < powerIterations; q++) {
+			MatrixKernels.multiplyTransposeA(a, y, z, rows, cols, l, executor);
+			MatrixKernels.orthonormalizeColumns(z, cols, l);
+			MatrixKernels.multiply(a, z, y, rows, cols, l, executor);
+			MatrixKernels.orthonormalizeColumns(y, rows, l);
+		}
+
+		// B = Y^T * A is l x cols, A ~ Y * B = (Y * Ub) * diag(s) * Vb^T
+		double[] b = new double[l * cols];
+		MatrixKernels.multiplyTransposeA(y, a, b, rows, l, cols, executor);
+
+		double[][] bData = new double[l][cols];
+		for(int i = 0; i < l; i++) {
+			System.arraycopy(b, i * cols, bData[i], 0, cols);
+		}
+
+		SingularValueDecomposition svd = new SingularValueDecomposition(new Array2DRowRealMatrix(bData, false));
+		SingularTriplets small = FullSvd.truncate(svd.getU(), svd.getSingularValues(), svd.getV(), threshold);
+
+		int rank = small.getRank();
+		double[] u = new double[rows * rank];
+		MatrixKernels.multiply(y, small.getU(), u, rows, l, rank);
+
+		return new SingularTriplets(rows, cols, rank, u, small.getSingularValues(), small.getV());
+	}
+}
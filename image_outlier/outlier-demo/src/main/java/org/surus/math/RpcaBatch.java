@@ -0,0 +1,143 @@
+package org.surus.math;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Decomposes many independent matrices, e.g. one per sensor or customer, on a fixed number of threads.
+ *
+ * Each decomposition runs in a single worker thread. Workers keep their scratch buffers
+ * between tasks, so after the largest matrix has been seen no buffers are allocated
+ * besides the results. Results are returned in the order in which the decompositions finish.
+ * At most a few tasks per thread are taken from the input at a time, so tasks can be
+ * produced lazily by the iterator.
+ */
+public class RpcaBatch {
+
+	private static final int TASKS_PER_THREAD = 2;
+
+	private final int threads;
+	private final RpcaOptions options;
+	private final ForkJoinPool pool;
+	private double outlierThreshold = 0;
+
+	private final ThreadLocal<RpcaWorkspace> workspaces = new ThreadLocal<RpcaWorkspace>() {
+		@Override
+		protected RpcaWorkspace initialValue() {
+			return new RpcaWorkspace();
+		}
+	};
+
+	public RpcaBatch(int threads) {
+		this(threads, new RpcaOptions());
+	}
+
+	/**
+	 * @param options shared by all tasks, the parallelism of the options is not used.
+	 * The SVD strategy and a listener are called from several threads.
+	 */
+	public RpcaBatch(int threads, RpcaOptions options) {
+		if(options.getWarmStartL() != null) {
+			throw new IllegalArgumentException("warm start is not supported for batches");
+		}
+
+		this.threads = Math.max(1, threads);
+		this.options = options;
+		this.pool = new ForkJoinPool(this.threads);
+	}
+
+	/**
+	 * Sets the absolute value of S above which an entry is marked as outlier in the results (default: 0).
+	 */
+	public void setOutlierThreshold(double outlierThreshold) {
+		this.outlierThreshold = outlierThreshold;
+	}
+
+	public double getOutlierThreshold() {
+		return outlierThreshold;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public Iterator<RpcaResult> decompose(Iterable<RpcaTask> tasks) {
+		return decompose(tasks.iterator());
+	}
+
+	/**
+	 * Starts the decomposition of the tasks. The next task is taken from the input
+	 * whenever a result is taken from the returned iterator.
+	 * A task that fails throws its exception from {@link Iterator#next()}.
+	 */
+	public Iterator<RpcaResult> decompose(final Iterator<RpcaTask> tasks) {
+		final CompletionService<RpcaResult> completion = new ExecutorCompletionService<RpcaResult>(pool);
+
+		return new Iterator<RpcaResult>() {
+			private int running = fill(0);
+
+			private int fill(int running) {
+				while(running < TASKS_PER_THREAD * threads && tasks.hasNext()) {
+					completion.submit(callable(tasks.next()));
+					running++;
+				}
+				return running;
+			}
+
+			public boolean hasNext() {
+				return running > 0;
+			}
+
+			public RpcaResult next() {
+				if(running == 0) {
+					throw new NoSuchElementException();
+				}
+
+				try {
+					RpcaResult result = completion.take().get();
+					running = fill(running - 1);
+					return result;
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while waiting for a decomposition", e);
+				}
+				catch(ExecutionException e) {
+					running = fill(running - 1);
+					if(e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private Callable<RpcaResult> callable(final RpcaTask task) {
+		return new Callable<RpcaResult>() {
+			public RpcaResult call() {
+				RPCA rpca = new RPCA(task.getData(), task.getLpenalty(), task.getSpenalty(), options,
+						workspaces.get(), BlockExecutor.SEQUENTIAL);
+
+				return new RpcaResult(task.getId(), rpca.copyL(), rpca.getSparseS(), rpca.copyE(),
+						rpca.getOutlierMask(outlierThreshold), rpca.getStatistics());
+			}
+		};
+	}
+
+	/**
+	 * Stops the worker threads, running decompositions are finished.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+}
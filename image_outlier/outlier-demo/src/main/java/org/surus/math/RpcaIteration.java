@@ -0,0 +1,96 @@
+package org.surus.math;
+
+/**
+ * State of an {@link RPCA} decomposition after one iteration, passed to an {@link RpcaListener}.
+ */
+public class RpcaIteration {
+
+	private final int iteration;
+	private final double objective;
+	private final double objectiveChange;
+	private final double mu;
+	private final int rank;
+	private final double lChange;
+	private final double sChange;
+	private final long svdNanos;
+	private final long elementwiseNanos;
+
+	RpcaIteration(int iteration, double objective, double objectiveChange, double mu, int rank,
+			double lChange, double sChange, long svdNanos, long elementwiseNanos) {
+		this.iteration = iteration;
+		this.objective = objective;
+		this.objectiveChange = objectiveChange;
+		this.mu = mu;
+		this.rank = rank;
+		this.lChange = lChange;
+		this.sChange = sChange;
+		this.svdNanos = svdNanos;
+		this.elementwiseNanos = elementwiseNanos;
+	}
+
+	/**
+	 * @return number of the iteration, starting at 1
+	 */
+	public int getIteration() {
+		return iteration;
+	}
+
+	public double getObjective() {
+		return objective;
+	}
+
+	/**
+	 * @return absolute change of the objective in this iteration
+	 */
+	public double getObjectiveChange() {
+		return objectiveChange;
+	}
+
+	/**
+	 * @return mu used in this iteration
+	 */
+	public double getMu() {
+		return mu;
+	}
+
+	/**
+	 * @return rank of L
+	 */
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return ||L - L_prev|| / ||L|| (Frobenius norms)
+	 */
+	public double getLChange() {
+		return lChange;
+	}
+
+	/**
+	 * @return ||S - S_prev|| / ||S|| (Frobenius norms)
+	 */
+	public double getSChange() {
+		return sChange;
+	}
+
+	/**
+	 * @return time of the singular value decomposition and the reconstruction of L in this iteration
+	 */
+	public long getSvdNanos() {
+		return svdNanos;
+	}
+
+	/**
+	 * @return time of the elementwise passes computing S and E in this iteration
+	 */
+	public long getElementwiseNanos() {
+		return elementwiseNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("iteration %d objective %.6g change %.3g mu %.4g rank %d L change %.3g S change %.3g svd %.2fms elementwise %.2fms",
+				iteration, objective, objectiveChange, mu, rank, lChange, sChange, svdNanos / 1e6, elementwiseNanos / 1e6);
+	}
+}
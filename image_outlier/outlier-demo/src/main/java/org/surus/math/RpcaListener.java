@@ -0,0 +1,13 @@
+package org.surus.math;
+
+/**
+ * Receives the progress of an {@link RPCA} decomposition (see {@link RpcaOptions#setListener(RpcaListener)}).
+ * It is called on the thread that runs the decomposition.
+ */
+public interface RpcaListener {
+
+	/**
+	 * Called after each iteration.
+	 */
+	void iterationDone(RpcaIteration iteration);
+}
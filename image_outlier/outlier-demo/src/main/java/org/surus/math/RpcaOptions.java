@@ -0,0 +1,144 @@
+package org.surus.math;
+
+/**
+ * Settings of an {@link RPCA} decomposition.
+ */
+public class RpcaOptions {
+
+	private SvdStrategy svdStrategy = new FullSvd();
+	private int parallelism = 1;
+
+	private double tolerance = 1e-8;
+	private double changeTolerance = 0;
+	private int maxIterations = 228;
+	private long timeBudgetMillis = 0;
+	private RpcaListener listener;
+
+	private double[][] warmStartL;
+	private double warmStartMu;
+	private int warmStartRank = -1;
+
+	public SvdStrategy getSvdStrategy() {
+		return svdStrategy;
+	}
+
+	/**
+	 * Sets the singular value decomposition used in each iteration (default: {@link FullSvd}).
+	 */
+	public void setSvdStrategy(SvdStrategy svdStrategy) {
+		this.svdStrategy = svdStrategy;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads for the elementwise stages and the reconstruction of L (default: 1).
+	 * Results do not depend on the number of threads.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Stops when the objective changes less than this fraction of its initial value 0.5 * ||X||^2
+	 * in one iteration (default: 1e-8).
+	 */
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	public double getChangeTolerance() {
+		return changeTolerance;
+	}
+
+	/**
+	 * Stops when the relative changes ||L - L_prev|| / ||L|| and ||S - S_prev|| / ||S|| of one iteration
+	 * are both below this value (default: 0, disabled).
+	 */
+	public void setChangeTolerance(double changeTolerance) {
+		this.changeTolerance = changeTolerance;
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * Sets the maximum number of iterations (default: 228).
+	 */
+	public void setMaxIterations(int maxIterations) {
+		if(maxIterations < 1) {
+			throw new IllegalArgumentException("maximum number of iterations " + maxIterations + " is not positive");
+		}
+
+		this.maxIterations = maxIterations;
+	}
+
+	public long getTimeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+
+	/**
+	 * Stops after the iteration that exceeds the given wall-clock time (default: 0, unlimited).
+	 * At least one iteration is run.
+	 */
+	public void setTimeBudgetMillis(long timeBudgetMillis) {
+		this.timeBudgetMillis = Math.max(0, timeBudgetMillis);
+	}
+
+	public RpcaListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets a listener called after each iteration (default: none).
+	 */
+	public void setListener(RpcaListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts the iterations from a previous low rank matrix and mu instead of zero,
+	 * e.g. the decomposition of an overlapping window of the same series.
+	 * The first iteration derives S from L, so no prior S is needed. Null restores the cold start.
+	 */
+	public void setWarmStart(double[][] l, double mu) {
+		if(l != null && !(mu > 0)) {
+			throw new IllegalArgumentException("mu " + mu + " is not positive");
+		}
+
+		this.warmStartL = l;
+		this.warmStartMu = mu;
+		this.warmStartRank = -1;
+	}
+
+	/**
+	 * Starts the iterations from the final L, mu and rank of a previous decomposition
+	 * of a matrix with the same dimensions.
+	 */
+	public void setWarmStart(RPCA previous) {
+		setWarmStart(previous.getL().getData(), previous.getMu());
+		this.warmStartRank = previous.getRank();
+	}
+
+	public double[][] getWarmStartL() {
+		return warmStartL;
+	}
+
+	public double getWarmStartMu() {
+		return warmStartMu;
+	}
+
+	/**
+	 * @return rank of the warm start L passed to the SVD strategy as a hint, -1 if unknown
+	 */
+	public int getWarmStartRank() {
+		return warmStartRank;
+	}
+}
@@ -0,0 +1,53 @@
+package org.surus.math;
+
+/**
+ * Decomposition of one {@link RpcaTask} computed by an {@link RpcaBatch}.
+ */
+public class RpcaResult {
+
+	private final String id;
+	private final double[][] l;
+	private final SparseMatrix s;
+	private final double[][] e;
+	private final boolean[][] outliers;
+	private final RpcaStatistics statistics;
+
+	RpcaResult(String id, double[][] l, SparseMatrix s, double[][] e, boolean[][] outliers, RpcaStatistics statistics) {
+		this.id = id;
+		this.l = l;
+		this.s = s;
+		this.e = e;
+		this.outliers = outliers;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * @return id of the task
+	 */
+	public String getId() {
+		return id;
+	}
+
+	public double[][] getL() {
+		return l;
+	}
+
+	public SparseMatrix getS() {
+		return s;
+	}
+
+	public double[][] getE() {
+		return e;
+	}
+
+	/**
+	 * @return true for the entries whose sparse component exceeds the outlier threshold of the batch
+	 */
+	public boolean[][] getOutliers() {
+		return outliers;
+	}
+
+	public RpcaStatistics getStatistics() {
+		return statistics;
+	}
+}
@@ -0,0 +1,98 @@
+package org.surus.math;
+
+/**
+ * Summary of a finished {@link RPCA} decomposition.
+ */
+public class RpcaStatistics {
+
+	/**
+	 * Stopping criterion that ended the iterations.
+	 */
+	public enum Stop {
+		/** the objective changed less than {@link RpcaOptions#setTolerance(double)} */
+		OBJECTIVE,
+		/** L and S changed less than {@link RpcaOptions#setChangeTolerance(double)} */
+		CHANGE,
+		/** {@link RpcaOptions#setMaxIterations(int)} was reached */
+		MAX_ITERATIONS,
+		/** {@link RpcaOptions#setTimeBudgetMillis(long)} was exceeded */
+		TIME_BUDGET
+	}
+
+	private final int iterations;
+	private final Stop stop;
+	private final double objective;
+	private final int rank;
+	private final double sparsity;
+	private final long svdNanos;
+	private final long elementwiseNanos;
+	private final long totalNanos;
+
+	RpcaStatistics(int iterations, Stop stop, double objective, int rank, double sparsity,
+			long svdNanos, long elementwiseNanos, long totalNanos) {
+		this.iterations = iterations;
+		this.stop = stop;
+		this.objective = objective;
+		this.rank = rank;
+		this.sparsity = sparsity;
+		this.svdNanos = svdNanos;
+		this.elementwiseNanos = elementwiseNanos;
+		this.totalNanos = totalNanos;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public Stop getStop() {
+		return stop;
+	}
+
+	/**
+	 * @return objective after the last iteration
+	 */
+	public double getObjective() {
+		return objective;
+	}
+
+	/**
+	 * @return rank of L
+	 */
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return fraction of the entries of S that are not zero
+	 */
+	public double getSparsity() {
+		return sparsity;
+	}
+
+	/**
+	 * @return total time of the singular value decompositions and the reconstructions of L
+	 */
+	public long getSvdNanos() {
+		return svdNanos;
+	}
+
+	/**
+	 * @return total time of the elementwise passes
+	 */
+	public long getElementwiseNanos() {
+		return elementwiseNanos;
+	}
+
+	/**
+	 * @return time of the whole decomposition
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d iterations (%s), objective %.6g, rank %d, non-zero S %.4f, svd %.1fms, elementwise %.1fms, total %.1fms",
+				iterations, stop, objective, rank, sparsity, svdNanos / 1e6, elementwiseNanos / 1e6, totalNanos / 1e6);
+	}
+}
@@ -0,0 +1,38 @@
+package org.surus.math;
+
+/**
+ * A matrix to decompose in an {@link RpcaBatch} together with its penalties.
+ */
+public class RpcaTask {
+
+	private final String id;
+	private final double[][] data;
+	private final double lpenalty;
+	private final double spenalty;
+
+	/**
+	 * @param id identifies the result, e.g. the sensor or customer of the series
+	 */
+	public RpcaTask(String id, double[][] data, double lpenalty, double spenalty) {
+		this.id = id;
+		this.data = data;
+		this.lpenalty = lpenalty;
+		this.spenalty = spenalty;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public double[][] getData() {
+		return data;
+	}
+
+	public double getLpenalty() {
+		return lpenalty;
+	}
+
+	public double getSpenalty() {
+		return spenalty;
+	}
+}
@@ -0,0 +1,47 @@
+package org.surus.math;
+
+/**
+ * Scratch buffers of an {@link RPCA} decomposition that can be reused by later decompositions
+ * in the same thread. Buffers grow to the largest matrix seen and are never shrunk.
+ */
+class RpcaWorkspace {
+
+	double[] x = new double[0];
+	double[] l = new double[0];
+	double[] e = new double[0];
+	double[] work = new double[0];
+
+	double[] partialSum = new double[0];
+	double[] partialSquares = new double[0];
+	double[] partialMean = new double[0];
+	double[] partialM2 = new double[0];
+	double[] partialChange = new double[0];
+	double[] partialNorm = new double[0];
+	double[] partialNonZero = new double[0];
+
+	final SparseBlocks sparse = new SparseBlocks();
+
+	/**
+	 * Grows the buffers to hold a matrix with the given number of entries split into the given number of blocks.
+	 */
+	void ensureCapacity(int entries, int blocks) {
+		if(x.length < entries) {
+			x = new double[entries];
+			l = new double[entries];
+			e = new double[entries];
+			work = new double[entries];
+		}
+
+		if(partialSum.length < blocks) {
+			partialSum = new double[blocks];
+			partialSquares = new double[blocks];
+			partialMean = new double[blocks];
+			partialM2 = new double[blocks];
+			partialChange = new double[blocks];
+			partialNorm = new double[blocks];
+			partialNonZero = new double[blocks];
+		}
+
+		sparse.ensureCapacity(blocks);
+	}
+}
@@ -0,0 +1,82 @@
+package org.surus.math;
+
+/**
+ * Truncated singular value decomposition U * diag(s) * V^T of a rows x cols matrix.
+ * U (rows x rank) and V (cols x rank) are stored in row-major order,
+ * singular values are sorted in decreasing order.
+ */
+public class SingularTriplets {
+
+	private final int rows;
+	private final int cols;
+	private final int rank;
+	private final double[] u;
+	private final double[] s;
+	private final double[] v;
+
+	public SingularTriplets(int rows, int cols, int rank, double[] u, double[] s, double[] v) {
+		this.rows = rows;
+		this.cols = cols;
+		this.rank = rank;
+		this.u = u;
+		this.s = s;
+		this.v = v;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * @return number of singular triplets
+	 */
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return entry (i, r) of U
+	 */
+	public double getU(int i, int r) {
+		return u[i * rank + r];
+	}
+
+	/**
+	 * @return r-th largest singular value
+	 */
+	public double getSingularValue(int r) {
+		return s[r];
+	}
+
+	/**
+	 * @return entry (j, r) of V
+	 */
+	public double getV(int j, int r) {
+		return v[j * rank + r];
+	}
+
+	/**
+	 * @return U in row-major order (rows x rank)
+	 */
+	public double[] getU() {
+		return u;
+	}
+
+	/**
+	 * @return singular values in decreasing order
+	 */
+	public double[] getSingularValues() {
+		return s;
+	}
+
+	/**
+	 * @return V in row-major order (cols x rank)
+	 */
+	public double[] getV() {
+		return v;
+	}
+}
@@ -0,0 +1,126 @@
+package org.surus.math;
+
+/**
+ * Non-zero entries of a row-major matrix split into the row blocks of {@link RPCA}.
+ * Each block keeps the entries of the current and of the previous pass as parallel
+ * index and value lists sorted by index, so blocks can be filled concurrently.
+ */
+class SparseBlocks {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	int[][] index = new int[0][];
+	double[][] value = new double[0][];
+	int[] count = new int[0];
+
+	int[][] previousIndex = new int[0][];
+	double[][] previousValue = new double[0][];
+	int[] previousCount = new int[0];
+
+	void ensureCapacity(int blocks) {
+		if(count.length < blocks) {
+			index = grow(index, blocks);
+			value = grow(value, blocks);
+			count = new int[blocks];
+			previousIndex = grow(previousIndex, blocks);
+			previousValue = grow(previousValue, blocks);
+			previousCount = new int[blocks];
+		}
+	}
+
+	/**
+	 * Removes all entries of the first blocks.
+	 */
+	void clear(int blocks) {
+		for(int b = 0; b < blocks; b++) {
+			count[b] = 0;
+			previousCount[b] = 0;
+		}
+	}
+
+	/**
+	 * Makes the current entries of the block the previous ones and empties the current list.
+	 */
+	void swap(int b) {
+		int[] i = index[b];
+		index[b] = previousIndex[b];
+		previousIndex[b] = i;
+
+		double[] v = value[b];
+		value[b] = previousValue[b];
+		previousValue[b] = v;
+
+		previousCount[b] = count[b];
+		count[b] = 0;
+	}
+
+	/**
+	 * Appends an entry to the current list of the block, indexes must be increasing.
+	 */
+	void add(int b, int i, double v) {
+		int n = count[b];
+
+		if(n == index[b].length) {
+			int capacity = Math.max(INITIAL_CAPACITY, 2 * n);
+			int[] newIndex = new int[capacity];
+			double[] newValue = new double[capacity];
+			System.arraycopy(index[b], 0, newIndex, 0, n);
+			System.arraycopy(value[b], 0, newValue, 0, n);
+			index[b] = newIndex;
+			value[b] = newValue;
+		}
+
+		index[b][n] = i;
+		value[b][n] = v;
+		count[b] = n + 1;
+	}
+
+	/**
+	 * @return the current entries of the first blocks as a rows x cols matrix
+	 */
+	SparseMatrix toMatrix(int blocks, int rows, int cols) {
+		int nonZeros = 0;
+		for(int b = 0; b < blocks; b++) {
+			nonZeros += count[b];
+		}
+
+		int[] rowStart = new int[rows + 1];
+		int[] columns = new int[nonZeros];
+		double[] values = new double[nonZeros];
+		int k = 0;
+
+		for(int b = 0; b < blocks; b++) {
+			for(int n = 0; n < count[b]; n++) {
+				int i = index[b][n];
+				rowStart[i / cols + 1]++;
+				columns[k] = i % cols;
+				values[k] = value[b][n];
+				k++;
+			}
+		}
+
+		for(int r = 0; r < rows; r++) {
+			rowStart[r + 1] += rowStart[r];
+		}
+
+		return new SparseMatrix(rows, cols, rowStart, columns, values);
+	}
+
+	private static int[][] grow(int[][] lists, int blocks) {
+		int[][] grown = new int[blocks][];
+		System.arraycopy(lists, 0, grown, 0, lists.length);
+		for(int b = lists.length; b < blocks; b++) {
+			grown[b] = new int[0];
+		}
+		return grown;
+	}
+
+	private static double[][] grow(double[][] lists, int blocks) {
+		double[][] grown = new double[blocks][];
+		System.arraycopy(lists, 0, grown, 0, lists.length);
+		for(int b = lists.length; b < blocks; b++) {
+			grown[b] = new double[0];
+		}
+		return grown;
+	}
+}
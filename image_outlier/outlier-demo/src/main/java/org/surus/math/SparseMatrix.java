@@ -0,0 +1,127 @@
+package org.surus.math;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable sparse matrix in compressed sparse row (CSR) format, e.g. the sparse component S of {@link RPCA}.
+ * The entries of row i are at the positions getRowStart(i) (inclusive) to getRowStart(i + 1) (exclusive),
+ * ordered by column.
+ */
+public class SparseMatrix {
+
+	private final int rows;
+	private final int cols;
+	private final int[] rowStart;
+	private final int[] columns;
+	private final double[] values;
+
+	SparseMatrix(int rows, int cols, int[] rowStart, int[] columns, double[] values) {
+		this.rows = rows;
+		this.cols = cols;
+		this.rowStart = rowStart;
+		this.columns = columns;
+		this.values = values;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * @return number of stored entries
+	 */
+	public int getNonZeros() {
+		return values.length;
+	}
+
+	public int getRowStart(int row) {
+		return rowStart[row];
+	}
+
+	/**
+	 * @return column of the entry at the given position
+	 */
+	public int getColumn(int position) {
+		return columns[position];
+	}
+
+	/**
+	 * @return value of the entry at the given position
+	 */
+	public double getValue(int position) {
+		return values[position];
+	}
+
+	/**
+	 * @return entry (row, col), 0 if it is not stored
+	 */
+	public double get(int row, int col) {
+		int lo = rowStart[row];
+		int hi = rowStart[row + 1] - 1;
+
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if(columns[mid] < col) {
+				lo = mid + 1;
+			}
+			else if(columns[mid] > col) {
+				hi = mid - 1;
+			}
+			else {
+				return values[mid];
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * @return the entries whose absolute value exceeds the threshold in row-major order
+	 */
+	public List<Outlier> getOutliers(double threshold) {
+		List<Outlier> outliers = new ArrayList<Outlier>();
+
+		for(int row = 0; row < rows; row++) {
+			for(int k = rowStart[row]; k < rowStart[row + 1]; k++) {
+				if(Math.abs(values[k]) > threshold) {
+					outliers.add(new Outlier(row, columns[k], values[k]));
+				}
+			}
+		}
+
+		return outliers;
+	}
+
+	/**
+	 * @return true for the entries whose absolute value exceeds the threshold
+	 */
+	public boolean[][] getMask(double threshold) {
+		boolean[][] mask = new boolean[rows][cols];
+
+		for(int row = 0; row < rows; row++) {
+			for(int k = rowStart[row]; k < rowStart[row + 1]; k++) {
+				mask[row][columns[k]] = Math.abs(values[k]) > threshold;
+			}
+		}
+
+		return mask;
+	}
+
+	public double[][] toArray() {
+		double[][] matrix = new double[rows][cols];
+
+		for(int row = 0; row < rows; row++) {
+			for(int k = rowStart[row]; k < rowStart[row + 1]; k++) {
+				matrix[row][columns[k]] = values[k];
+			}
+		}
+
+		return matrix;
+	}
+}
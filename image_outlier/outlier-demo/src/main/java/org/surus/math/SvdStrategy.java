@@ -0,0 +1,22 @@
+package org.surus.math;
+
+/**
+ * Computes the singular value decomposition used by {@link RPCA} to update the low rank component.
+ *
+ * RPCA soft-thresholds the singular values, so only the singular triplets above the threshold
+ * contribute to L. Strategies may use this to skip the remaining triplets. Implementations
+ * must be thread safe, the same instance may be shared by several decompositions. Parallel work
+ * runs on the executor of the caller, RPCA passes the one of its parallelism.
+ */
+public interface SvdStrategy {
+
+	/**
+	 * Computes the singular triplets of a matrix whose singular value exceeds the threshold.
+	 * @param a matrix with rows x cols entries in row-major order, not modified
+	 * @param threshold only triplets with a larger singular value are returned
+	 * @param rankHint expected number of triplets above the threshold (e.g. from the previous iteration), -1 if unknown
+	 * @param executor runs parallel loops, {@link BlockExecutor#SEQUENTIAL} to stay in the calling thread
+	 * @return triplets in decreasing order of singular value
+	 */
+	SingularTriplets decompose(double[] a, int rows, int cols, double threshold, int rankHint, BlockExecutor executor);
+}
@@ -0,0 +1,105 @@
+package org.ece16.lof;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.junit.Test;
+
+public class DistanceMetricTest {
+
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void testKernels() {
+		double[][] points = LocalOutlierFactorTest.randomPoints(20, 11, 1);
+		PointStore heap = PointStore.of(points, false);
+		PointStore offHeap = PointStore.of(points, true);
+
+		for(int i = 0; i < points.length; i++) {
+			for(int j = 0; j < points.length; j++) {
+				double l2 = 0.0;
+				double l1 = 0.0;
+				double ab = 0.0, aa = 0.0, bb = 0.0;
+
+				for(int d = 0; d < points[i].length; d++) {
+					double diff = points[i][d] - points[j][d];
+					l2 += diff * diff;
+					l1 += Math.abs(diff);
+					ab += points[i][d] * points[j][d];
+					aa += points[i][d] * points[i][d];
+					bb += points[j][d] * points[j][d];
+				}
+
+				double cosine = 1.0 - ab / Math.sqrt(aa * bb);
+
+				for(PointStore store: new PointStore[] {heap, offHeap}) {
+					assertEquals(Math.sqrt(l2), DistanceMetric.EUCLIDEAN.distance(store, i, j), EPSILON);
+					assertEquals(l2, DistanceMetric.EUCLIDEAN.rankDistance(store, i, j), EPSILON);
+					assertEquals(l1, DistanceMetric.MANHATTAN.distance(store, i, j), EPSILON);
+					assertEquals(Math.max(0.0, cosine), DistanceMetric.COSINE.distance(store, i, j), EPSILON);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMahalanobis() {
+		double[][] points = LocalOutlierFactorTest.randomPoints(50, 3, 2);
+		PointStore store = PointStore.of(points);
+
+		double[][] identity = new double[][] {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+		MahalanobisDistance euclidean = new MahalanobisDistance(identity);
+
+		double[][] covariance = new double[][] {{4, 1, 0}, {1, 2, 0.5}, {0, 0.5, 1}};
+		MahalanobisDistance mahalanobis = new MahalanobisDistance(covariance);
+		double[][] inverse = MatrixUtils.inverse(MatrixUtils.createRealMatrix(covariance)).getData();
+
+		for(int i = 0; i < points.length; i++) {
+			for(int j = 0; j < points.length; j++) {
+				assertEquals(store.distance(i, j), euclidean.distance(store, i, j), EPSILON);
+
+				double sum = 0.0;
+				for(int r = 0; r < 3; r++) {
+					for(int c = 0; c < 3; c++) {
+						sum += (points[i][r] - points[j][r]) * inverse[r][c] * (points[i][c] - points[j][c]);
+					}
+				}
+				assertEquals(Math.sqrt(sum), mahalanobis.distance(store, i, j), EPSILON);
+			}
+		}
+	}
+
+	@Test
+	public void testIndexesWithMetrics() {
+		PointStore points = PointStore.of(LocalOutlierFactorTest.randomPoints(400, 5, 3));
+		DistanceMetric[] metrics = new DistanceMetric[] { DistanceMetric.MANHATTAN, MahalanobisDistance.fromData(points) };
+
+		for(DistanceMetric metric: metrics) {
+			LocalOutlierFactor lof = new LocalOutlierFactor();
+			lof.setK(10);
+			lof.setMetric(metric);
+			double[] expected = lof.getOutlierScores(points).getLof();
+
+			KnnIndex[] indexes = metric.isCoordinateBounded() ?
+					new KnnIndex[] { new KdTreeIndex(), new VpTreeIndex() } :
+					new KnnIndex[] { new VpTreeIndex() };
+
+			for(KnnIndex index: indexes) {
+				lof.setIndex(index);
+				double[] actual = lof.getOutlierScores(points).getLof();
+
+				for(int id = 0; id < expected.length; id++) {
+					assertEquals(metric.getClass().getSimpleName() + " " + index.getClass().getSimpleName(), expected[id], actual[id], EPSILON);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedMetric() {
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setIndex(new VpTreeIndex());
+		lof.setMetric(DistanceMetric.COSINE);
+		lof.getOutlierScores(LocalOutlierFactorTest.randomPoints(20, 3, 4));
+	}
+}
@@ -0,0 +1,93 @@
+package org.ece16.lof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IncrementalLofTest {
+
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void testInsert() {
+		double[][] points = LocalOutlierFactorTest.randomPoints(300, 4, 11);
+		IncrementalLof incremental = new IncrementalLof(7, 4, points.length);
+		List<Integer> ids = new ArrayList<Integer>();
+
+		for(int i = 0; i < points.length; i++) {
+			ids.add(incremental.insert(points[i]));
+
+			if(i == 50 || i == points.length - 1) {
+				assertMatchesBatch(incremental, ids, 7);
+			}
+		}
+	}
+
+	@Test
+	public void testSlidingWindow() {
+		double[][] points = LocalOutlierFactorTest.randomPoints(500, 3, 12);
+		IncrementalLof incremental = new IncrementalLof(10, 3, 120);
+		List<Integer> ids = new ArrayList<Integer>();
+
+		for(int i = 0; i < points.length; i++) {
+			int id = incremental.insert(points[i]);
+
+			if(ids.size() == 120) {
+				assertFalse(incremental.contains(ids.get(0)) && ids.get(0) != id);
+				ids.remove(0);
+			}
+
+			ids.add(id);
+		}
+
+		assertEquals(120, incremental.size());
+		assertMatchesBatch(incremental, ids, 10);
+	}
+
+	@Test
+	public void testRemove() {
+		double[][] points = LocalOutlierFactorTest.randomPoints(200, 5, 13);
+		IncrementalLof incremental = new IncrementalLof(5, 5, points.length);
+		List<Integer> ids = new ArrayList<Integer>();
+		Random random = new Random(14);
+
+		for(int i = 0; i < points.length; i++) {
+			ids.add(incremental.insert(points[i]));
+		}
+
+		for(int i = 0; i < 80; i++) {
+			incremental.remove(ids.remove(random.nextInt(ids.size())));
+		}
+
+		assertMatchesBatch(incremental, ids, 5);
+
+		for(int i = 0; i < 40; i++) {
+			ids.add(incremental.insert(points[random.nextInt(points.length)]));
+		}
+
+		assertMatchesBatch(incremental, ids, 5);
+	}
+
+	/**
+	 * Compares the scores of the window with a batch run over the same points.
+	 */
+	private static void assertMatchesBatch(IncrementalLof incremental, List<Integer> ids, int k) {
+		double[][] window = new double[ids.size()][];
+		for(int i = 0; i < window.length; i++) {
+			window[i] = incremental.getPoint(ids.get(i));
+		}
+
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setK(k);
+		double[] expected = lof.getOutlierScores(window).getLof();
+
+		for(int i = 0; i < window.length; i++) {
+			assertEquals(expected[i], incremental.getLof(ids.get(i)), EPSILON);
+		}
+	}
+}
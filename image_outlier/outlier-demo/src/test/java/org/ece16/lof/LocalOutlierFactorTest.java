@@ -0,0 +1,386 @@
+package org.ece16.lof;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocalOutlierFactorTest {
+
+	private static final double EPSILON = 1e-9;
+
+	public static double[][] randomPoints(int n, int dim, long seed) {
+		Random random = new Random(seed);
+		double[][] points = new double[n][dim];
+
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < dim; j++) {
+				points[i][j] = random.nextGaussian();
+			}
+		}
+
+		// a few far away points
+		for(int i = 0; i < n; i += 17) {
+			points[i][0] += 10.0;
+		}
+
+		return points;
+	}
+
+	/**
+	 * Straightforward LOF as computed by the original node list implementation.
+	 */
+	public static double[] referenceLof(double[][] points, int k) {
+		int n = points.length;
+		int[][] neighbors = new int[n][k - 1];
+		double[][] distances = new double[n][k - 1];
+		double[] kDistance = new double[n];
+		double[] reachDensity = new double[n];
+		double[] lof = new double[n];
+
+		for(int i = 0; i < n; i++) {
+			double[] row = new double[n];
+			for(int j = 0; j < n; j++) {
+				row[j] = DataNode.distance(points[i], points[j]);
+			}
+
+			boolean[] used = new boolean[n];
+			used[i] = true;
+
+			for(int m = 0; m < k - 1; m++) {
+				int best = -1;
+				for(int j = 0; j < n; j++) {
+					if(!used[j] && (best < 0 || row[j] < row[best])) {
+						best = j;
+					}
+				}
+				used[best] = true;
+				neighbors[i][m] = best;
+				distances[i][m] = row[best];
+			}
+
+			kDistance[i] = distances[i][k - 2];
+		}
+
+		for(int i = 0; i < n; i++) {
+			double sum = 0.0;
+			for(int m = 0; m < k - 1; m++) {
+				sum += Math.max(kDistance[neighbors[i][m]], distances[i][m]);
+			}
+			reachDensity[i] = k / sum;
+		}
+
+		for(int i = 0; i < n; i++) {
+			double sum = 0.0;
+			for(int m = 0; m < k - 1; m++) {
+				sum += reachDensity[neighbors[i][m]] / reachDensity[i];
+			}
+			lof[i] = sum / k;
+		}
+
+		return lof;
+	}
+
+	@Test
+	public void testScoresMatchReference() {
+		double[][] points = randomPoints(200, 5, 42);
+
+		for(int k: new int[] {2, 5, 10, 20}) {
+			LocalOutlierFactor lof = new LocalOutlierFactor();
+			lof.setK(k);
+
+			double[] expected = referenceLof(points, k);
+			double[] actual = lof.getOutlierScores(points).getLof();
+
+			assertEquals(expected.length, actual.length);
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals("k=" + k + " id=" + i, expected[i], actual[i], EPSILON);
+			}
+		}
+	}
+
+	@Test
+	public void testOutlierNodes() {
+		double[][] points = randomPoints(100, 3, 7);
+		List<DataNode> nodes = new ArrayList<DataNode>();
+
+		for(int i = 0; i < points.length; i++) {
+			nodes.add(new DataNode("" + i, "B", points[i]));
+		}
+
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setK(10);
+
+		List<DataNode> sorted = lof.getOutlierNodes(nodes);
+		double[] expected = referenceLof(points, 10);
+
+		assertEquals(nodes.size(), sorted.size());
+
+		for(int i = 0; i < sorted.size(); i++) {
+			DataNode node = sorted.get(i);
+			int id = Integer.parseInt(node.getNodeName());
+
+			assertEquals(expected[id], node.getLof(), EPSILON);
+			assertEquals(9, node.getkNeighbor().size());
+
+			if(i > 0) {
+				assertTrue(sorted.get(i - 1).getLof() >= node.getLof());
+			}
+		}
+
+		double[] lofs = new double[sorted.size()];
+		for(int i = 0; i < lofs.length; i++) {
+			lofs[i] = sorted.get(i).getLof();
+		}
+		Arrays.sort(expected);
+		assertEquals(expected[expected.length - 1], lofs[0], EPSILON);
+	}
+
+	@Test
+	public void testSpatialIndexes() {
+		for(int dim: new int[] {2, 6, 30}) {
+			double[][] points = randomPoints(500, dim, dim);
+			KnnIndex[] indexes = new KnnIndex[] { new KdTreeIndex(), new KdTreeIndex(1), new VpTreeIndex(), new VpTreeIndex(3, 17) };
+
+			LocalOutlierFactor lof = new LocalOutlierFactor();
+			lof.setK(15);
+			double[] expected = lof.getOutlierScores(points).getLof();
+
+			for(KnnIndex index: indexes) {
+				lof.setIndex(index);
+				double[] actual = lof.getOutlierScores(points).getLof();
+
+				for(int i = 0; i < expected.length; i++) {
+					assertEquals(index.getClass().getSimpleName() + " dim=" + dim + " id=" + i, expected[i], actual[i], EPSILON);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testApproximateIndex() {
+		double[][] points = randomPoints(1000, 20, 5);
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setK(10);
+		LofResult exact = lof.getOutlierScores(points);
+
+		// a single leaf holds all points, the index is exact
+		lof.setIndex(new RpForestIndex(1, points.length, 1));
+		LofComparison comparison = LofComparison.compare(exact, lof.getOutlierScores(points), 50);
+		assertEquals(1.0, comparison.getNeighborRecall(), 0.0);
+		assertEquals(1.0, comparison.getTopRecall(), 0.0);
+		assertEquals(0.0, comparison.getMaxLofError(), 0.0);
+
+		lof.setIndex(new RpForestIndex(12, 100, 2));
+		comparison = LofComparison.compare(exact, lof.getOutlierScores(points), 50);
+		assertTrue(comparison.toString(), comparison.getNeighborRecall() > 0.8);
+		assertTrue(comparison.toString(), comparison.getTopRecall() > 0.7);
+		assertTrue(comparison.toString(), comparison.getSpearman() > 0.8);
+	}
+
+	@Test
+	public void testParallelism() {
+		double[][] points = randomPoints(1000, 4, 3);
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setK(20);
+		lof.setIndex(new KdTreeIndex());
+		double[] expected = lof.getOutlierScores(points).getLof();
+
+		for(int parallelism: new int[] {2, 4, 7}) {
+			lof.setParallelism(parallelism);
+			double[] actual = lof.getOutlierScores(points).getLof();
+
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals("parallelism=" + parallelism + " id=" + i, expected[i], actual[i], 0.0);
+			}
+		}
+
+		// after shutdown the instance computes sequentially
+		lof.shutdown();
+		assertArrayEquals(expected, lof.getOutlierScores(points).getLof(), 0.0);
+	}
+
+	@Test
+	public void testMultipleK() {
+		double[][] points = randomPoints(300, 3, 11);
+		int[] ks = new int[] {10, 3, 25, 10};
+
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		LofResult[] results = lof.getOutlierScores(points, ks);
+
+		assertEquals(ks.length, results.length);
+
+		for(int i = 0; i < ks.length; i++) {
+			double[] expected = referenceLof(points, ks[i]);
+			assertEquals(ks[i], results[i].getK());
+
+			for(int id = 0; id < expected.length; id++) {
+				assertEquals("k=" + ks[i] + " id=" + id, expected[id], results[i].getLof(id), EPSILON);
+			}
+		}
+
+		double[] maxLof = lof.getMaxOutlierScores(points, 5, 15);
+		double[] expected = new double[points.length];
+		Arrays.fill(expected, Double.NEGATIVE_INFINITY);
+
+		for(int k = 5; k <= 15; k++) {
+			double[] reference = referenceLof(points, k);
+			for(int id = 0; id < points.length; id++) {
+				expected[id] = Math.max(expected[id], reference[id]);
+			}
+		}
+
+		for(int id = 0; id < points.length; id++) {
+			assertEquals(expected[id], maxLof[id], EPSILON);
+		}
+	}
+
+	/**
+	 * LOF as defined in the paper, k-distance neighbourhoods include ties.
+	 */
+	public static double[] referencePaperLof(double[][] points, int k) {
+		int n = points.length;
+		double[][] distances = new double[n][n];
+		double[] kDistance = new double[n];
+		double[] reachDensity = new double[n];
+		double[] lof = new double[n];
+
+		for(int i = 0; i < n; i++) {
+			double[] others = new double[n - 1];
+			for(int j = 0, m = 0; j < n; j++) {
+				distances[i][j] = DataNode.distance(points[i], points[j]);
+				if(j != i) { others[m++] = distances[i][j]; }
+			}
+			Arrays.sort(others);
+			kDistance[i] = others[k - 1];
+		}
+
+		for(int i = 0; i < n; i++) {
+			double sum = 0.0;
+			int size = 0;
+			for(int j = 0; j < n; j++) {
+				if(j != i && distances[i][j] <= kDistance[i]) {
+					sum += Math.max(kDistance[j], distances[i][j]);
+					size++;
+				}
+			}
+			reachDensity[i] = size / sum;
+		}
+
+		for(int i = 0; i < n; i++) {
+			double sum = 0.0;
+			int size = 0;
+			for(int j = 0; j < n; j++) {
+				if(j != i && distances[i][j] <= kDistance[i]) {
+					sum += reachDensity[j] / reachDensity[i];
+					size++;
+				}
+			}
+			lof[i] = sum / size;
+		}
+
+		return lof;
+	}
+
+	@Test
+	public void testPaperNeighborhoodsWithTies() {
+		// distinct points on a coarse grid, many equal distances
+		double[][] points = new double[400][2];
+		for(int i = 0; i < points.length; i++) {
+			points[i][0] = (i % 20) * 0.5 + (i % 7 == 0 ? 0.25 : 0.0);
+			points[i][1] = (i / 20) * 0.5;
+		}
+		points[399][0] = 30.0;
+
+		int[] ks = new int[] {3, 8, 15};
+		KnnIndex[] indexes = new KnnIndex[] { new LinearScanIndex(), new KdTreeIndex(), new VpTreeIndex() };
+
+		for(KnnIndex index: indexes) {
+			LocalOutlierFactor lof = new LocalOutlierFactor();
+			lof.setPaperNeighborhoods(true);
+			lof.setIndex(index);
+			LofResult[] results = lof.getOutlierScores(points, ks);
+
+			for(int i = 0; i < ks.length; i++) {
+				double[] expected = referencePaperLof(points, ks[i]);
+				for(int id = 0; id < expected.length; id++) {
+					assertEquals(index.getClass().getSimpleName() + " k=" + ks[i] + " id=" + id, expected[id], results[i].getLof(id), EPSILON);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNeighborQueue() {
+		double[] distances = new double[] {5.0, 1.0, 3.0, 3.0, 2.0, 3.0, 0.5, 3.0, 4.0};
+
+		NeighborQueue queue = new NeighborQueue(4);
+		NeighborQueue tieQueue = new NeighborQueue(4, true);
+
+		for(int id = 0; id < distances.length; id++) {
+			queue.offer(id, distances[id]);
+			tieQueue.offer(id, distances[id]);
+		}
+
+		assertEquals(4, queue.size());
+		assertEquals(3.0, queue.bound(), 0.0);
+		assertArrayEquals(new int[] {6, 1, 4, 2}, ids(queue));
+
+		assertEquals(7, tieQueue.size());
+		assertArrayEquals(new int[] {6, 1, 4, 2, 3, 5, 7}, ids(tieQueue));
+		assertEquals(3.0, tieQueue.getDistance(6), 0.0);
+
+		// a closer candidate removes all ties
+		tieQueue.clear();
+		for(int id = 0; id < distances.length; id++) {
+			tieQueue.offer(id, distances[id]);
+		}
+		tieQueue.offer(9, 0.1);
+		assertArrayEquals(new int[] {9, 6, 1, 4}, ids(tieQueue));
+	}
+
+	private static int[] ids(NeighborQueue queue) {
+		int[] ids = new int[queue.size()];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = queue.getId(i);
+		}
+		return ids;
+	}
+
+	@Test
+	public void testPointStore() {
+		double[][] points = randomPoints(300, 8, 13);
+		PointStore heap = PointStore.of(points, false);
+		PointStore offHeap = PointStore.of(points, true);
+
+		assertTrue(offHeap.isOffHeap());
+		assertEquals(300, offHeap.size());
+		assertEquals(8, offHeap.dimension());
+		assertArrayEquals(points[17], offHeap.getPoint(17), 0.0);
+		assertEquals(DataNode.distance(points[3], points[5]), offHeap.distance(3, 5), 0.0);
+
+		LocalOutlierFactor lof = new LocalOutlierFactor();
+		lof.setK(12);
+		lof.setIndex(new VpTreeIndex());
+		double[] expected = referenceLof(points, 12);
+		double[] heapLof = lof.getOutlierScores(heap).getLof();
+		double[] offHeapLof = lof.getOutlierScores(offHeap).getLof();
+
+		for(int id = 0; id < points.length; id++) {
+			assertEquals(expected[id], heapLof[id], EPSILON);
+			assertEquals(expected[id], offHeapLof[id], EPSILON);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOffHeapCapacity() {
+		// 3e8 coordinates fit an int but not 8 * 3e8 bytes
+		new PointStore(1000000, 300, true);
+	}
+}
@@ -0,0 +1,81 @@
+package org.ece16.surus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.surus.math.Outlier;
+
+public class PenaltySearchTest {
+
+	/**
+	 * Rank 1 table with columns of very different scales and a few gross errors.
+	 */
+	private static double[][] table(long seed) {
+		Random random = new Random(seed);
+		double[] scales = {0.01, 1, 100, 1000, 0.5, 20};
+		double[][] data = new double[80][scales.length];
+
+		for(int i = 0; i < data.length; i++) {
+			double factor = random.nextGaussian();
+			for(int j = 0; j < scales.length; j++) {
+				data[i][j] = scales[j] * (5 + factor * (1 + 0.1 * j) + 0.05 * random.nextGaussian());
+			}
+		}
+
+		data[7][3] += 10000;
+		data[42][0] -= 0.1;
+		data[63][5] += 200;
+
+		return data;
+	}
+
+	@Test
+	public void testScaler() {
+		double[][] data = table(1);
+		RobustScaler scaler = new RobustScaler(data);
+		double[][] scaled = scaler.scale(data);
+
+		for(int j = 0; j < data[0].length; j++) {
+			// unit spread in every column despite the different scales
+			assertTrue(scaler.getScale(j) > 0);
+			double[] column = new double[data.length];
+			for(int i = 0; i < data.length; i++) {
+				column[i] = Math.abs(scaled[i][j]);
+			}
+			Arrays.sort(column);
+			assertEquals(1 / 1.4826, column[column.length / 2], 0.05);
+		}
+
+		double[][] unscaled = scaler.unscale(scaled);
+		for(int i = 0; i < data.length; i++) {
+			for(int j = 0; j < data[0].length; j++) {
+				assertEquals(data[i][j], unscaled[i][j], 1e-9 * Math.abs(data[i][j]));
+			}
+		}
+	}
+
+	@Test
+	public void testSearch() {
+		double[][] data = table(2);
+		PenaltySearch search = new PenaltySearch(new RobustScaler(data).scale(data));
+		search.setThreads(2);
+		search.setTargetSparsity(0.01);
+		PenaltyCandidate best = search.search();
+
+		assertEquals(6, search.getResults().size());
+		assertTrue(best.getSparsity() < 0.05);
+
+		boolean[][] found = new boolean[data.length][data[0].length];
+		for(Outlier outlier : best.getResult().getS().getOutliers(1)) {
+			found[outlier.getRow()][outlier.getCol()] = true;
+		}
+
+		assertTrue(found[7][3]);
+		assertTrue(found[42][0]);
+		assertTrue(found[63][5]);
+	}
+}
@@ -0,0 +1,88 @@
+package org.surus.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OnlineRPCATest {
+
+	@Test
+	public void testSamples() {
+		int dimension = 20;
+		int rank = 2;
+		Random random = new Random(1);
+		double[][] basis = new double[dimension][rank];
+
+		for(int i = 0; i < dimension; i++) {
+			for(int j = 0; j < rank; j++) {
+				basis[i][j] = random.nextGaussian();
+			}
+		}
+
+		// entries are of order 4, the sparse penalty is in data units
+		OnlineRPCA rpca = new OnlineRPCA(dimension, rank, 0.05, 1, 0);
+		rpca.setForgettingFactor(0.98);
+		double[] z = new double[dimension];
+
+		for(int t = 0; t < 2000; t++) {
+			double c0 = 3 * random.nextGaussian();
+			double c1 = 3 * random.nextGaussian();
+
+			for(int i = 0; i < dimension; i++) {
+				z[i] = basis[i][0] * c0 + basis[i][1] * c1 + 0.01 * random.nextGaussian();
+			}
+
+			int spike = t % 25 == 0 ? random.nextInt(dimension) : -1;
+			if(spike >= 0) {
+				z[spike] += 8;
+			}
+
+			rpca.update(z);
+
+			if(t < 1000) {
+				continue;
+			}
+
+			double[] sparse = rpca.getSparse();
+			for(int i = 0; i < dimension; i++) {
+				if(i == spike) {
+					assertTrue("t=" + t + " s=" + sparse[i], sparse[i] > 6);
+				}
+				else {
+					assertEquals("t=" + t, 0, sparse[i], 0.5);
+				}
+			}
+		}
+
+		assertEquals(2000, rpca.getSamples());
+	}
+
+	@Test
+	public void testObservations() {
+		int period = 24;
+		// windows of a shifted sine span a subspace of rank 3
+		OnlineRPCA rpca = new OnlineRPCA(period, 3, 0.05, 1, 0);
+		rpca.setForgettingFactor(0.98);
+		Random random = new Random(2);
+
+		for(int t = 0; t < 1500; t++) {
+			double value = 10 + 3 * Math.sin(2 * Math.PI * t / period) + 0.01 * random.nextGaussian();
+			boolean spike = t > 500 && t % 200 == 0;
+
+			double sparse = rpca.addObservation(spike ? value + 5 : value);
+
+			if(t < period - 1) {
+				assertTrue(Double.isNaN(sparse));
+			}
+			else if(spike) {
+				assertTrue("t=" + t + " s=" + sparse, sparse > 3);
+			}
+			else if(t > 500 && t % 200 > period) {
+				assertEquals("t=" + t, 0, sparse, 0.5);
+			}
+		}
+	}
+}
@@ -1,7 +1,15 @@
 package org.surus.math;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.Test;
 
 public class RPCA_Test {
@@ -56,6 +64,290 @@ public class RPCA_Test {
     assertTrue(MatrixApproximatelyEquals(E_matrix_r, E, 0.0001));
     assertTrue(MatrixApproximatelyEquals(S_matrix_r, S, 0.0001));
     assertTrue(MatrixApproximatelyEquals(L_matrix_r, L, 0.0001));
+    
+    // S has three non-zero entries, stored sparse
+    SparseMatrix sparse = rsvd.getSparseS();
+    assertEquals(3, sparse.getNonZeros());
+    assertTrue(MatrixApproximatelyEquals(S, sparse.toArray(), 0));
+    
+    List<Outlier> outliers = rsvd.getOutliers(0.2);
+    assertEquals(2, outliers.size());
+    assertEquals(2, outliers.get(0).getRow());
+    assertEquals(2, outliers.get(0).getCol());
+    assertEquals(0.318707767321735, outliers.get(0).getValue(), 0.0001);
+    assertEquals(5, outliers.get(1).getRow());
+    assertEquals(7, outliers.get(1).getCol());
+    assertEquals(2.09194305945145, sparse.get(5, 7), 0.0001);
   }
-
-}
\ No newline at end of file
+  
+  /**
+   * Matrix of the specified rank plus small noise, about 2% of the entries carry large outliers.
+   */
+  public static double[][] lowRankPlusSparse(int rows, int cols, int rank, long seed) {
+	return lowRankPlusSparse(rows, cols, rank, 0.01, seed);
+  }
+  
+  public static double[][] lowRankPlusSparse(int rows, int cols, int rank, double noise, long seed) {
+	Random random = new Random(seed);
+	double[][] u = new double[rows][rank];
+	double[][] v = new double[rank][cols];
+	double[][] x = new double[rows][cols];
+	
+	for (int i = 0; i < rows; i++)
+		for (int r = 0; r < rank; r++)
+			u[i][r] = random.nextGaussian();
+	
+	for (int r = 0; r < rank; r++)
+		for (int j = 0; j < cols; j++)
+			v[r][j] = random.nextGaussian();
+	
+	for (int i = 0; i < rows; i++) {
+		for (int j = 0; j < cols; j++) {
+			x[i][j] = noise * random.nextGaussian();
+			for (int r = 0; r < rank; r++)
+				x[i][j] += u[i][r] * v[r][j];
+			if (random.nextDouble() < 0.02)
+				x[i][j] += random.nextBoolean() ? 10 : -10;
+		}
+	}
+	
+	return x;
+  }
+  
+  @Test
+  public void testRandomizedSvd() {
+	int rows = 150;
+	int cols = 90;
+	double[][] x = lowRankPlusSparse(rows, cols, 4, 1);
+	double[] a = new double[rows * cols];
+	for (int i = 0; i < rows; i++)
+		System.arraycopy(x[i], 0, a, i * cols, cols);
+	
+	SingularTriplets full = new FullSvd().decompose(a, rows, cols, 15, -1, BlockExecutor.SEQUENTIAL);
+	SingularTriplets randomized = new RandomizedSvd().decompose(a, rows, cols, 15, 2, BlockExecutor.SEQUENTIAL);
+	
+	assertEquals(full.getRank(), randomized.getRank());
+	for (int r = 0; r < full.getRank(); r++) {
+		assertEquals(full.getSingularValue(r), randomized.getSingularValue(r), 1e-8 * full.getSingularValue(0));
+		
+		// singular vectors are unique up to their sign
+		double sign = Math.signum(full.getU(0, r) * randomized.getU(0, r));
+		for (int i = 0; i < rows; i++)
+			assertEquals(full.getU(i, r), sign * randomized.getU(i, r), 1e-6);
+		for (int j = 0; j < cols; j++)
+			assertEquals(full.getV(j, r), sign * randomized.getV(j, r), 1e-6);
+	}
+	
+	// results do not depend on the executor
+	BlockExecutor executor = new BlockExecutor(3);
+	try {
+		SingularTriplets parallel = new RandomizedSvd().decompose(a, rows, cols, 15, 2, executor);
+		assertEquals(randomized.getRank(), parallel.getRank());
+		for (int r = 0; r < randomized.getRank(); r++)
+			assertEquals(randomized.getSingularValue(r), parallel.getSingularValue(r), 0);
+	}
+	finally {
+		executor.shutdown();
+	}
+  }
+  
+  @Test
+  public void testRandomizedRPCA() {
+	double[][] x = lowRankPlusSparse(120, 80, 3, 2);
+	double spenalty = 1.4 / Math.sqrt(120);
+	
+	RPCA full = new RPCA(x, 1, spenalty);
+	RPCA randomized = new RPCA(x, 1, spenalty, new RandomizedSvd());
+	
+	assertTrue(MatrixApproximatelyEquals(full.getL().getData(), randomized.getL().getData(), 0.0001));
+	assertTrue(MatrixApproximatelyEquals(full.getS().getData(), randomized.getS().getData(), 0.0001));
+	assertTrue(MatrixApproximatelyEquals(full.getE().getData(), randomized.getE().getData(), 0.0001));
+  }
+  
+  @Test
+  public void testParallelRPCA() {
+	double[][] x = lowRankPlusSparse(300, 40, 3, 3);
+	double spenalty = 1.4 / Math.sqrt(300);
+	
+	RPCA sequential = new RPCA(x, 1, spenalty, new RandomizedSvd());
+	
+	RpcaOptions options = new RpcaOptions();
+	options.setSvdStrategy(new RandomizedSvd());
+	options.setParallelism(4);
+	RPCA parallel = new RPCA(x, 1, spenalty, options);
+	
+	// results do not depend on the number of threads
+	assertTrue(MatrixApproximatelyEquals(sequential.getL().getData(), parallel.getL().getData(), 0));
+	assertTrue(MatrixApproximatelyEquals(sequential.getS().getData(), parallel.getS().getData(), 0));
+	assertTrue(MatrixApproximatelyEquals(sequential.getE().getData(), parallel.getE().getData(), 0));
+  }
+  
+  @Test
+  public void testWarmStart() {
+	double[][] x = lowRankPlusSparse(121, 80, 3, 0.3, 4);
+	double spenalty = 1.4 / Math.sqrt(120);
+	double[][] window = new double[120][];
+	double[][] next = new double[120][];
+	for (int i = 0; i < 120; i++) {
+		window[i] = x[i];
+		next[i] = x[i + 1];
+	}
+	
+	RPCA previous = new RPCA(window, 1, spenalty);
+	RPCA cold = new RPCA(next, 1, spenalty);
+	
+	// shift the previous L with the window, repeat its last row for the new one
+	double[][] l = previous.getL().getData();
+	double[][] shifted = new double[120][];
+	for (int i = 0; i < 120; i++)
+		shifted[i] = l[Math.min(i + 1, 119)];
+	
+	RpcaOptions options = new RpcaOptions();
+	options.setWarmStart(shifted, previous.getMu());
+	RPCA warm = new RPCA(next, 1, spenalty, options);
+	
+	assertTrue("iterations cold " + cold.getIterations() + " warm " + warm.getIterations(),
+			warm.getIterations() * 2 < cold.getIterations());
+	assertTrue(MatrixApproximatelyEquals(cold.getL().getData(), warm.getL().getData(), 0.0001));
+	assertTrue(MatrixApproximatelyEquals(cold.getS().getData(), warm.getS().getData(), 0.0001));
+	
+	// restarting from the converged decomposition of the same data
+	options.setWarmStart(cold);
+	assertTrue(new RPCA(next, 1, spenalty, options).getIterations() <= 2);
+  }
+  
+  @Test
+  public void testStatistics() {
+	double[][] x = lowRankPlusSparse(120, 80, 3, 0.3, 5);
+	double spenalty = 1.4 / Math.sqrt(120);
+	
+	final List<RpcaIteration> trace = new ArrayList<RpcaIteration>();
+	RpcaOptions options = new RpcaOptions();
+	options.setListener(new RpcaListener() {
+		public void iterationDone(RpcaIteration iteration) {
+			trace.add(iteration);
+		}
+	});
+	RPCA rpca = new RPCA(x, 1, spenalty, options);
+	RpcaStatistics statistics = rpca.getStatistics();
+	
+	assertEquals(statistics.toString(), RpcaStatistics.Stop.OBJECTIVE, statistics.getStop());
+	assertEquals(rpca.getIterations(), trace.size());
+	assertEquals(statistics.getIterations(), trace.get(trace.size() - 1).getIteration());
+	assertEquals(rpca.getRank(), statistics.getRank());
+	assertEquals(statistics.getObjective(), trace.get(trace.size() - 1).getObjective(), 0);
+	
+	int nonZero = 0;
+	for (double[] row : rpca.getS().getData())
+		for (double value : row)
+			if (value != 0)
+				nonZero++;
+	assertEquals((double) nonZero / (120 * 80), statistics.getSparsity(), 1e-12);
+	
+	// the changes of L and S vanish towards convergence
+	RpcaIteration last = trace.get(trace.size() - 1);
+	assertTrue(last.getLChange() < 1e-4);
+	assertTrue(last.getSChange() < 1e-3);
+	
+	// stopping on small changes of L and S ends earlier with nearly the same result
+	options = new RpcaOptions();
+	options.setChangeTolerance(1e-3);
+	RPCA early = new RPCA(x, 1, spenalty, options);
+	assertEquals(RpcaStatistics.Stop.CHANGE, early.getStatistics().getStop());
+	assertTrue(early.getIterations() < rpca.getIterations());
+	assertTrue(MatrixApproximatelyEquals(rpca.getL().getData(), early.getL().getData(), 0.01));
+	
+	options = new RpcaOptions();
+	options.setMaxIterations(5);
+	assertEquals(RpcaStatistics.Stop.MAX_ITERATIONS, new RPCA(x, 1, spenalty, options).getStatistics().getStop());
+  }
+  
+  @Test
+  public void testBatch() {
+	// sizes vary so that workers reuse larger buffers for smaller matrices
+	List<RpcaTask> tasks = new ArrayList<RpcaTask>();
+	for (int t = 0; t < 24; t++) {
+		int rows = 10 + (t * 7) % 30;
+		tasks.add(new RpcaTask("series" + t, lowRankPlusSparse(rows, 8 + t % 5, 2, 0.3, t), 1, 1.4 / Math.sqrt(rows)));
+	}
+	
+	RpcaBatch batch = new RpcaBatch(3);
+	batch.setOutlierThreshold(1);
+	Map<String, RpcaResult> results = new HashMap<String, RpcaResult>();
+	for (Iterator<RpcaResult> it = batch.decompose(tasks); it.hasNext(); ) {
+		RpcaResult result = it.next();
+		results.put(result.getId(), result);
+	}
+	batch.shutdown();
+	
+	assertEquals(tasks.size(), results.size());
+	for (RpcaTask task : tasks) {
+		RPCA rpca = new RPCA(task.getData(), task.getLpenalty(), task.getSpenalty());
+		RpcaResult result = results.get(task.getId());
+		
+		assertTrue(MatrixApproximatelyEquals(rpca.getL().getData(), result.getL(), 0));
+		assertTrue(MatrixApproximatelyEquals(rpca.getS().getData(), result.getS().toArray(), 0));
+		assertTrue(MatrixApproximatelyEquals(rpca.getE().getData(), result.getE(), 0));
+		assertEquals(rpca.getIterations(), result.getStatistics().getIterations());
+		
+		boolean[][] mask = rpca.getOutlierMask(1);
+		for (int i = 0; i < mask.length; i++)
+			for (int j = 0; j < mask[i].length; j++)
+				assertEquals(mask[i][j], result.getOutliers()[i][j]);
+	}
+  }
+  
+  @Test
+  public void testBatchFailure() {
+	// with one thread at most 2 tasks are in flight, failures must not shrink the window
+	List<RpcaTask> tasks = new ArrayList<RpcaTask>();
+	for (int t = 0; t < 6; t++) {
+		double[][] data = lowRankPlusSparse(20, 8, 2, 0.3, t);
+		if (t < 2) {
+			data[3] = new double[5];
+		}
+		tasks.add(new RpcaTask("series" + t, data, 1, 1.4 / Math.sqrt(20)));
+	}
+	
+	RpcaBatch batch = new RpcaBatch(1);
+	int failures = 0;
+	int results = 0;
+	for (Iterator<RpcaResult> it = batch.decompose(tasks); it.hasNext(); ) {
+		try {
+			it.next();
+			results++;
+		}
+		catch (IllegalArgumentException e) {
+			failures++;
+		}
+	}
+	batch.shutdown();
+	
+	assertEquals(2, failures);
+	assertEquals(4, results);
+  }
+  
+  @Test
+  public void testFloatRPCA() {
+	double[][] x = lowRankPlusSparse(120, 80, 3, 0.3, 2);
+	double spenalty = 1.4 / Math.sqrt(120);
+	
+	RPCA rpca = new RPCA(x, 1, spenalty);
+	FloatRPCA floatRpca = new FloatRPCA(x, 1, spenalty);
+	
+	// single precision accuracy relative to entries of order 10
+	assertEquals(rpca.getRank(), floatRpca.getRank());
+	assertTrue(MatrixApproximatelyEquals(rpca.getL().getData(), toDouble(floatRpca.getL()), 0.001));
+	assertTrue(MatrixApproximatelyEquals(rpca.getS().getData(), toDouble(floatRpca.getS()), 0.001));
+	assertTrue(MatrixApproximatelyEquals(rpca.getE().getData(), toDouble(floatRpca.getE()), 0.001));
+	assertEquals(rpca.getOutliers(1).size(), floatRpca.getOutliers(1).size());
+  }
+  
+  private static double[][] toDouble(float[][] a) {
+	double[][] d = new double[a.length][a[0].length];
+	for (int i = 0; i < a.length; i++)
+		for (int j = 0; j < a[0].length; j++)
+			d[i][j] = a[i][j];
+	return d;
+  }
+}